@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+import javax.swing.undo.UndoManager;
+import org.exbin.jaguif.utils.ActionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of deleting large selection through editor kit delete action and
+ * directly from document.
+ * <p>
+ * Selection covers all but first and last line of document, document is
+ * restored before each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class DeleteSelectionBenchmark {
+
+    private static final int LINE_LENGTH = 80;
+
+    @Param({"action", "direct"})
+    public String path;
+
+    @Param({"1048576", "16777216"})
+    public int documentSize;
+
+    private JTextArea textArea;
+    private UndoManager undoManager;
+
+    @Setup
+    public void setup() throws BadLocationException {
+        textArea = new JTextArea();
+        char[] line = new char[LINE_LENGTH];
+        Arrays.fill(line, 'x');
+        line[LINE_LENGTH - 1] = '\n';
+        StringBuilder builder = new StringBuilder(documentSize);
+        while (builder.length() < documentSize) {
+            builder.append(line);
+        }
+        textArea.getDocument().insertString(0, builder.toString(), null);
+        undoManager = new UndoManager();
+        undoManager.setLimit(1);
+        textArea.getDocument().addUndoableEditListener(undoManager);
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreDocument() {
+        if (undoManager.canUndo()) {
+            undoManager.undo();
+        }
+        Document document = textArea.getDocument();
+        textArea.select(LINE_LENGTH, document.getLength() - LINE_LENGTH);
+    }
+
+    @Benchmark
+    public int deleteSelection() {
+        if ("direct".equals(path)) {
+            ActionUtils.deleteSelection(textArea);
+        } else {
+            ActionUtils.invokeTextAction(textArea, DefaultEditorKit.deleteNextCharAction);
+        }
+        return textArea.getDocument().getLength();
+    }
+}
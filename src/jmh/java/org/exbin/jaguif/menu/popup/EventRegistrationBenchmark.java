@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.FocusEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.InvocationEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JPanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-event dispatch cost of popup registration modes under synthetic event
+ * flood.
+ * <p>
+ * Flood is mix of invocation, focus, mouse and key events where none is popup
+ * trigger. Mode NONE gives baseline cost of the event queue itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class EventRegistrationBenchmark {
+
+    private static final int FLOOD_SIZE = 1000;
+    private static final Runnable NO_OPERATION = () -> {
+    };
+
+    @Param({"NONE", "EVENT_QUEUE", "AWT_EVENT_LISTENER"})
+    public String registration;
+
+    private EventQueue eventQueue;
+    private JPanel target;
+
+    @Setup
+    public void setup() {
+        if (!"NONE".equals(registration)) {
+            DefaultPopupMenu.register(EventRegistrationMode.valueOf(registration));
+        }
+        eventQueue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+        target = new JPanel();
+        target.setBounds(0, 0, 200, 200);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLOOD_SIZE)
+    public void eventFlood() throws Exception {
+        long when = System.currentTimeMillis();
+        for (int i = 0; i < FLOOD_SIZE; i++) {
+            eventQueue.postEvent(createEvent(i, when));
+        }
+
+        // Wait for whole flood to be dispatched
+        EventQueue.invokeAndWait(NO_OPERATION);
+    }
+
+    private AWTEvent createEvent(int index, long when) {
+        switch (index & 7) {
+            case 0:
+                return new MouseEvent(target, MouseEvent.MOUSE_PRESSED, when, InputEvent.BUTTON1_DOWN_MASK, 10, 10, 1, false, MouseEvent.BUTTON1);
+            case 1:
+                return new MouseEvent(target, MouseEvent.MOUSE_RELEASED, when, 0, 10, 10, 1, false, MouseEvent.BUTTON1);
+            case 2:
+                return new MouseEvent(target, MouseEvent.MOUSE_EXITED, when, 0, 10, 10, 0, false, MouseEvent.NOBUTTON);
+            case 3:
+                return new KeyEvent(target, KeyEvent.KEY_PRESSED, when, 0, KeyEvent.VK_A, 'a');
+            case 4:
+                return new FocusEvent(target, FocusEvent.FOCUS_LOST, true);
+            default:
+                return new InvocationEvent(target, NO_OPERATION);
+        }
+    }
+}
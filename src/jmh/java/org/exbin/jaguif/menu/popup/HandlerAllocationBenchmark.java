@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JEditorPane;
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of popup handler capability queries on large documents.
+ * <p>
+ * Capability queries must not materialize document text. Setup fails when
+ * computing popup actions state allocates more than
+ * {@link #ALLOCATION_BUDGET} bytes per popup trigger, regardless of document
+ * size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class HandlerAllocationBenchmark {
+
+    public static final long ALLOCATION_BUDGET = 256;
+    private static final int CHECK_ITERATIONS = 10000;
+
+    @Param({"textArea", "editorPane"})
+    public String handler;
+
+    @Param({"1024", "52428800"})
+    public int documentSize;
+
+    private TextClipboardOperationController clipboardHandler;
+
+    @Setup
+    public void setup() throws BadLocationException {
+        JTextComponent component = "editorPane".equals(handler) ? new JEditorPane("text/plain", "") : new JTextArea();
+        fillDocument(component.getDocument(), documentSize);
+        component.setBounds(0, 0, 200, 100);
+        component.select(0, 4);
+
+        PopupHandlerRegistry.Registration registration = PopupHandlerRegistry.getInstance().getRegistration(component.getClass());
+        if (registration == null) {
+            throw new IllegalStateException("No popup handler for " + component.getClass());
+        }
+        clipboardHandler = registration.createHandler(component);
+        checkAllocationBudget();
+    }
+
+    @Benchmark
+    public PopupActionsState actionsState() {
+        return PopupActionsState.of(clipboardHandler, null);
+    }
+
+    private void checkAllocationBudget() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < CHECK_ITERATIONS; i++) {
+            actionsState();
+        }
+
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CHECK_ITERATIONS; i++) {
+            actionsState();
+        }
+        long allocatedPerPopup = (threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / CHECK_ITERATIONS;
+        if (allocatedPerPopup > ALLOCATION_BUDGET) {
+            throw new IllegalStateException("Popup handler " + handler + " allocated " + allocatedPerPopup + " bytes per popup, budget is " + ALLOCATION_BUDGET);
+        }
+    }
+
+    private static void fillDocument(Document document, int size) throws BadLocationException {
+        char[] line = new char[80];
+        Arrays.fill(line, 'x');
+        line[line.length - 1] = '\n';
+        StringBuilder chunk = new StringBuilder();
+        while (chunk.length() < 65536) {
+            chunk.append(line);
+        }
+        String chunkText = chunk.toString();
+        while (document.getLength() < size) {
+            int length = Math.min(chunkText.length(), size - document.getLength());
+            document.insertString(document.getLength(), length == chunkText.length() ? chunkText : chunkText.substring(0, length), null);
+        }
+    }
+}
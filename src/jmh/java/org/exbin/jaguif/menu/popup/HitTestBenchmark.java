@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Component;
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Search for the deepest component using plain hierarchy walk compared to
+ * hit-test index on synthetic hierarchies.
+ * <p>
+ * Hierarchy is given as fan-out and depth, each container splits its area
+ * among its children in grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class HitTestBenchmark {
+
+    private static final int ROOT_WIDTH = 1920;
+    private static final int ROOT_HEIGHT = 1080;
+    private static final int POINTS_COUNT = 1024;
+
+    @Param({"4:6", "8:4", "2:12", "32:2"})
+    public String hierarchy;
+
+    private JPanel root;
+    private ComponentHitTestIndex index;
+    private Point[] points;
+    private int pointIndex = 0;
+
+    @Setup
+    public void setup() {
+        String[] parts = hierarchy.split(":");
+        int fanOut = Integer.parseInt(parts[0]);
+        int depth = Integer.parseInt(parts[1]);
+
+        root = new JPanel(null);
+        root.setBounds(0, 0, ROOT_WIDTH, ROOT_HEIGHT);
+        fillContainer(root, fanOut, depth);
+        index = new ComponentHitTestIndex(root);
+
+        Random random = new Random(42);
+        points = new Point[POINTS_COUNT];
+        for (int i = 0; i < POINTS_COUNT; i++) {
+            Point point = new Point(random.nextInt(ROOT_WIDTH), random.nextInt(ROOT_HEIGHT));
+            points[i] = point;
+            if (SwingUtilities.getDeepestComponentAt(root, point.x, point.y) != index.getDeepestComponentAt(point.x, point.y)) {
+                throw new IllegalStateException("Hit-test index mismatch at " + point);
+            }
+        }
+    }
+
+    @Benchmark
+    public Component hierarchyWalk() {
+        Point point = nextPoint();
+        return SwingUtilities.getDeepestComponentAt(root, point.x, point.y);
+    }
+
+    @Benchmark
+    public Component hitTestIndex() {
+        Point point = nextPoint();
+        return index.getDeepestComponentAt(point.x, point.y);
+    }
+
+    @Benchmark
+    public int hitTestIndexRebuild() {
+        index.invalidate();
+        return index.getComponentsCount();
+    }
+
+    private Point nextPoint() {
+        pointIndex = (pointIndex + 1) & (POINTS_COUNT - 1);
+        return points[pointIndex];
+    }
+
+    private static void fillContainer(JPanel container, int fanOut, int depth) {
+        if (depth == 0) {
+            return;
+        }
+
+        int columns = (int) Math.ceil(Math.sqrt(fanOut));
+        int rows = (fanOut + columns - 1) / columns;
+        int cellWidth = container.getWidth() / columns;
+        int cellHeight = container.getHeight() / rows;
+        for (int i = 0; i < fanOut; i++) {
+            JPanel child = new JPanel(null);
+            // Leave gap so that parent is hit between children
+            child.setBounds((i % columns) * cellWidth + 1, (i / columns) * cellHeight + 1, Math.max(cellWidth - 2, 1), Math.max(cellHeight - 2, 1));
+            container.add(child);
+            fillContainer(child, fanOut, depth - 1);
+        }
+    }
+}
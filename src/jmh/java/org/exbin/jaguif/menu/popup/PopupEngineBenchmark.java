@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.AWTEvent;
+import java.awt.Point;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JComponent;
+import javax.swing.JEditorPane;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.text.JTextComponent;
+import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of popup engine steps.
+ * <p>
+ * Run with gc profiler (default for gradle jmh task) to see allocation per
+ * operation as gc.alloc.rate.norm. Popup menus are built, but not shown.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PopupEngineBenchmark {
+
+    @Benchmark
+    public void processNonTriggerEvent(EngineState engine) {
+        engine.popupMenu.processAWTEvent(engine.nextNonTriggerEvent());
+    }
+
+    @Benchmark
+    public void activateMousePopup(EngineState engine, HandlerState handler) {
+        engine.popupMenu.activateMousePopup(handler.triggerEvent, handler.component, handler.clipboardHandler);
+    }
+
+    @Benchmark
+    public void showPopupMenu(EngineState engine, HandlerState handler) {
+        engine.popupMenu.showPopupMenu(handler.component, handler.point, handler.clipboardHandler);
+    }
+
+    @Benchmark
+    public boolean updateFor(EngineState engine, HandlerState handler) {
+        DefaultPopupMenu popupMenu = engine.popupMenu;
+        popupMenu.updateActions(handler.clipboardHandler, handler.triggerEvent);
+        return popupMenu.defaultCopyAction.isEnabled();
+    }
+
+    @State(Scope.Benchmark)
+    public static class EngineState {
+
+        PopupEventTraceReplay popupMenu;
+        private AWTEvent[] nonTriggerEvents;
+        private int eventIndex = 0;
+
+        @Setup
+        public void setup() {
+            popupMenu = new PopupEventTraceReplay(new JPanel());
+            JPanel source = new JPanel();
+            nonTriggerEvents = new AWTEvent[]{
+                new MouseEvent(source, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK, 10, 10, 1, false, MouseEvent.BUTTON1),
+                new MouseEvent(source, MouseEvent.MOUSE_RELEASED, 0, 0, 10, 10, 1, false, MouseEvent.BUTTON1),
+                new KeyEvent(source, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_A, 'a'),
+                new KeyEvent(source, KeyEvent.KEY_PRESSED, 0, InputEvent.CTRL_DOWN_MASK, KeyEvent.VK_F10, KeyEvent.CHAR_UNDEFINED)
+            };
+        }
+
+        AWTEvent nextNonTriggerEvent() {
+            eventIndex = (eventIndex + 1) & 3;
+            return nonTriggerEvents[eventIndex];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HandlerState {
+
+        @Param({"textField", "textArea", "editorPane", "list", "table"})
+        public String handler;
+
+        JComponent component;
+        TextClipboardOperationController clipboardHandler;
+        MouseEvent triggerEvent;
+        Point point = new Point(10, 10);
+
+        @Setup
+        public void setup() {
+            switch (handler) {
+                case "textField":
+                    component = new JTextField("Text field content");
+                    break;
+                case "textArea":
+                    component = new JTextArea("Text area content\nSecond line");
+                    break;
+                case "editorPane":
+                    component = new JEditorPane("text/plain", "Editor pane content");
+                    break;
+                case "list":
+                    JList<String> list = new JList<>(new String[]{"Item 1", "Item 2", "Item 3"});
+                    list.setSelectedIndex(1);
+                    component = list;
+                    break;
+                case "table":
+                    JTable table = new JTable(new Object[][]{{"A", "B"}, {"C", "D"}}, new Object[]{"First", "Second"});
+                    table.setRowSelectionInterval(0, 0);
+                    component = table;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown handler: " + handler);
+            }
+            component.setBounds(0, 0, 200, 100);
+            if (component instanceof JTextComponent) {
+                ((JTextComponent) component).select(0, 4);
+            }
+
+            PopupHandlerRegistry.Registration registration = PopupHandlerRegistry.getInstance().getRegistration(component.getClass());
+            if (registration == null) {
+                throw new IllegalStateException("No popup handler for " + component.getClass());
+            }
+            clipboardHandler = registration.createHandler(component);
+            triggerEvent = new MouseEvent(component, MouseEvent.MOUSE_RELEASED, 0, 0, point.x, point.y, 1, true, MouseEvent.BUTTON3);
+        }
+    }
+}
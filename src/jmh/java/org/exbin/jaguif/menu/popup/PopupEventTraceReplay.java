@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Random;
+import javax.swing.JComponent;
+import javax.swing.JEditorPane;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import org.exbin.jaguif.menu.popup.trace.PopupEventTraceReader;
+import org.exbin.jaguif.menu.popup.trace.PopupEventTraceWriter;
+import org.exbin.jaguif.utils.LanguageUtils;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Replay of recorded popup event trace against synthetic component tree.
+ * <p>
+ * Popup menus are built and laid out, but not shown, so replay runs without
+ * display. Run
+ * with trace file as argument or without arguments for synthetic trace.
+ */
+public class PopupEventTraceReplay extends DefaultPopupMenu {
+
+    public static final int ROOT_WIDTH = 1280;
+    public static final int ROOT_HEIGHT = 800;
+    private static final int CELL_SIZE = 160;
+
+    private final Container root;
+    @Nullable
+    private Component focusOwner;
+    private int shownPopupsCount = 0;
+
+    public PopupEventTraceReplay(Container root) {
+        this.root = root;
+        initDefaultPopupMenu(LanguageUtils.getResourceBundleByClass(DefaultPopupMenu.class), DefaultPopupMenu.class);
+    }
+
+    public Container getRoot() {
+        return root;
+    }
+
+    public int getShownPopupsCount() {
+        return shownPopupsCount;
+    }
+
+    /**
+     * Reads trace with events targeted to root component.
+     *
+     * @param inputStream trace input stream
+     * @return list of events
+     * @throws IOException if reading failed
+     */
+    public List<AWTEvent> loadTrace(InputStream inputStream) throws IOException {
+        try (PopupEventTraceReader reader = new PopupEventTraceReader(inputStream)) {
+            return reader.readAll(root);
+        }
+    }
+
+    /**
+     * Passes events through popup event processing in the same way as popup
+     * event queue does after event dispatch.
+     *
+     * @param events events
+     */
+    public void replay(List<AWTEvent> events) {
+        for (AWTEvent event : events) {
+            if (event.getID() == MouseEvent.MOUSE_PRESSED) {
+                // Simulate focus transfer on click
+                MouseEvent mouseEvent = (MouseEvent) event;
+                focusOwner = SwingUtilities.getDeepestComponentAt(root, mouseEvent.getX(), mouseEvent.getY());
+            }
+
+            if (isPopupEvent(event)) {
+                processAWTEvent(event);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    protected Component getFocusOwner() {
+        return focusOwner;
+    }
+
+    @Override
+    protected void showPopup(JPopupMenu popupMenu, Component component, int x, int y) {
+        // Layout is computed as for showing, but nothing is displayed
+        popupMenu.getPreferredSize();
+        shownPopupsCount++;
+    }
+
+    /**
+     * Creates component tree with grid of components of all supported types
+     * and plain panels.
+     *
+     * @return root component
+     */
+    public static Container createSyntheticTree() {
+        JPanel root = new JPanel(null);
+        root.setBounds(0, 0, ROOT_WIDTH, ROOT_HEIGHT);
+        int index = 0;
+        for (int y = 0; y < ROOT_HEIGHT; y += CELL_SIZE) {
+            for (int x = 0; x < ROOT_WIDTH; x += CELL_SIZE) {
+                JComponent component = createSyntheticComponent(index++);
+                component.setBounds(x, y, CELL_SIZE, CELL_SIZE);
+                root.add(component);
+            }
+        }
+        root.validate();
+        return root;
+    }
+
+    private static JComponent createSyntheticComponent(int index) {
+        switch (index % 6) {
+            case 0:
+                return new JTextField("Text field " + index);
+            case 1:
+                return new JScrollPane(new JTextArea("Text area " + index + "\nSecond line\nThird line"));
+            case 2:
+                return new JEditorPane("text/plain", "Editor pane " + index);
+            case 3:
+                return new JScrollPane(new JList<>(new String[]{"Item 1", "Item 2", "Item 3", "Item 4"}));
+            case 4:
+                return new JScrollPane(new JTable(new Object[][]{{"A", "B"}, {"C", "D"}}, new Object[]{"First", "Second"}));
+            default: {
+                JPanel panel = new JPanel();
+                panel.add(new JLabel("Label " + index));
+                return panel;
+            }
+        }
+    }
+
+    /**
+     * Creates trace of random mouse movement, clicks and typing with popup
+     * triggers at random positions.
+     *
+     * @param eventsCount number of events
+     * @param seed random seed
+     * @return binary trace
+     * @throws IOException if writing failed
+     */
+    public static byte[] createSyntheticTrace(int eventsCount, long seed) throws IOException {
+        Container source = new JPanel(null);
+        Random random = new Random(seed);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (PopupEventTraceWriter writer = new PopupEventTraceWriter(outputStream)) {
+            long when = 0;
+            for (int i = 0; i < eventsCount; i++) {
+                when += random.nextInt(20);
+                int x = random.nextInt(ROOT_WIDTH);
+                int y = random.nextInt(ROOT_HEIGHT);
+                int kind = random.nextInt(64);
+                if (kind < 2) {
+                    writer.write(new MouseEvent(source, MouseEvent.MOUSE_PRESSED, when, InputEvent.BUTTON3_DOWN_MASK, x, y, 1, true, MouseEvent.BUTTON3));
+                } else if (kind < 3) {
+                    writer.write(new KeyEvent(source, KeyEvent.KEY_PRESSED, when, InputEvent.SHIFT_DOWN_MASK, KeyEvent.VK_F10, KeyEvent.CHAR_UNDEFINED));
+                } else if (kind < 12) {
+                    writer.write(new MouseEvent(source, MouseEvent.MOUSE_PRESSED, when, InputEvent.BUTTON1_DOWN_MASK, x, y, 1, false, MouseEvent.BUTTON1));
+                    writer.write(new MouseEvent(source, MouseEvent.MOUSE_RELEASED, when, 0, x, y, 1, false, MouseEvent.BUTTON1));
+                    i++;
+                } else if (kind < 32) {
+                    char keyChar = (char) ('a' + random.nextInt(26));
+                    writer.write(new KeyEvent(source, KeyEvent.KEY_PRESSED, when, 0, KeyEvent.VK_A + (keyChar - 'a'), keyChar));
+                    writer.write(new KeyEvent(source, KeyEvent.KEY_TYPED, when, 0, KeyEvent.VK_UNDEFINED, keyChar));
+                    i++;
+                } else {
+                    writer.write(new MouseEvent(source, MouseEvent.MOUSE_MOVED, when, 0, x, y, 0, false, MouseEvent.NOBUTTON));
+                }
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        PopupEventTraceReplay replay = new PopupEventTraceReplay(createSyntheticTree());
+        List<AWTEvent> events;
+        if (args.length > 0) {
+            try (InputStream inputStream = new FileInputStream(args[0])) {
+                events = replay.loadTrace(inputStream);
+            }
+        } else {
+            events = replay.loadTrace(new ByteArrayInputStream(createSyntheticTrace(4096, 42)));
+        }
+
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        for (int i = 0; i < iterations; i++) {
+            replay.replay(events);
+        }
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean allocationMeasured = threadBean instanceof com.sun.management.ThreadMXBean;
+        long allocatedBefore = allocationMeasured ? ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+        int shownBefore = replay.getShownPopupsCount();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            replay.replay(events);
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = allocationMeasured ? ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore : -1;
+
+        long replayedEvents = (long) events.size() * iterations;
+        int popups = replay.getShownPopupsCount() - shownBefore;
+        System.out.println("Events: " + events.size() + ", iterations: " + iterations + ", popups per iteration: " + popups / iterations);
+        System.out.printf("Time per event: %.1f ns%n", (double) duration / replayedEvents);
+        if (popups > 0) {
+            System.out.printf("Time per popup: %.1f us%n", duration / 1000.0 / popups);
+        }
+        if (allocationMeasured) {
+            System.out.printf("Allocated per event: %.1f B%n", (double) allocated / replayedEvents);
+            if (popups > 0) {
+                System.out.printf("Allocated per popup: %.1f B%n", (double) allocated / popups);
+            }
+        }
+    }
+}
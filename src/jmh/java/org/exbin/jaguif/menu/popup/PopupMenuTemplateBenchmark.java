@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Point;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import org.exbin.jaguif.menu.popup.handler.TextComponentPopupHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Popup menu build and layout with and without popup menu templates cache.
+ * <p>
+ * Benchmark coldFirstShow measures the very first popup in fresh JVM
+ * including class loading and look and feel initialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class PopupMenuTemplateBenchmark {
+
+    @Param({"false", "true"})
+    public boolean templateCache;
+
+    private PopupEventTraceReplay popupMenu;
+    private JTextField component;
+    private TextComponentPopupHandler clipboardHandler;
+    private MouseEvent triggerEvent;
+    private final Point point = new Point(10, 10);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        popupMenu = new PopupEventTraceReplay(new JPanel());
+        popupMenu.setTemplateCacheEnabled(templateCache);
+        component = new JTextField("Text field content");
+        component.setBounds(0, 0, 200, 20);
+        component.select(0, 4);
+        clipboardHandler = new TextComponentPopupHandler(component);
+        triggerEvent = new MouseEvent(component, MouseEvent.MOUSE_RELEASED, 0, 0, point.x, point.y, 1, true, MouseEvent.BUTTON3);
+    }
+
+    @Benchmark
+    public int repeatedShow() {
+        popupMenu.activateMousePopup(triggerEvent, component, clipboardHandler);
+        return popupMenu.getShownPopupsCount();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 10, jvmArgsAppend = "-Djava.awt.headless=true")
+    public int coldFirstShow() {
+        popupMenu.activateMousePopup(triggerEvent, component, clipboardHandler);
+        return popupMenu.getShownPopupsCount();
+    }
+}
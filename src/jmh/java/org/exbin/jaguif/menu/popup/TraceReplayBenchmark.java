@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.AWTEvent;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replay of whole popup event trace.
+ * <p>
+ * Recorded trace can be given using -p traceFile=path, synthetic trace is
+ * used otherwise.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class TraceReplayBenchmark {
+
+    private static final int SYNTHETIC_EVENTS_COUNT = 4096;
+
+    @Param({""})
+    public String traceFile;
+
+    private PopupEventTraceReplay replay;
+    private List<AWTEvent> events;
+
+    @Setup
+    public void setup() throws Exception {
+        replay = new PopupEventTraceReplay(PopupEventTraceReplay.createSyntheticTree());
+        if (traceFile.isEmpty()) {
+            events = replay.loadTrace(new ByteArrayInputStream(PopupEventTraceReplay.createSyntheticTrace(SYNTHETIC_EVENTS_COUNT, 42)));
+        } else {
+            try (InputStream inputStream = new FileInputStream(traceFile)) {
+                events = replay.loadTrace(inputStream);
+            }
+        }
+    }
+
+    @Benchmark
+    public int replayTrace() {
+        replay.replay(events);
+        return replay.getShownPopupsCount();
+    }
+}
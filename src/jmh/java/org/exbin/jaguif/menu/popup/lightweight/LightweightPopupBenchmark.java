@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.lightweight;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.KeyStroke;
+import org.exbin.jaguif.utils.UiUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building, laying out and painting popup menu with standard menu
+ * components and with lightweight popup menu.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class LightweightPopupBenchmark {
+
+    @Param({"standard", "lightweight"})
+    public String builder;
+
+    @Param({"6", "24"})
+    public int itemsCount;
+
+    private BufferedImage image;
+    private JPopupMenu popupMenu;
+
+    @Setup
+    public void setup() {
+        UiUtils.setMenuBuilder("lightweight".equals(builder) ? new LightweightMenuBuilder() : null);
+        image = new BufferedImage(400, 800, BufferedImage.TYPE_INT_ARGB);
+        popupMenu = buildPopupMenu();
+        popupMenu.setSize(popupMenu.getPreferredSize());
+    }
+
+    @TearDown
+    public void tearDown() {
+        UiUtils.setMenuBuilder(null);
+    }
+
+    @Benchmark
+    public JPopupMenu build() {
+        JPopupMenu menu = buildPopupMenu();
+        menu.setSize(menu.getPreferredSize());
+        menu.doLayout();
+        return menu;
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D g = image.createGraphics();
+        try {
+            popupMenu.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private JPopupMenu buildPopupMenu() {
+        JPopupMenu menu = UiUtils.createPopupMenu();
+        for (int i = 0; i < itemsCount; i++) {
+            if (i > 0 && i % 4 == 0) {
+                menu.addSeparator();
+            }
+            JMenuItem menuItem = UiUtils.createMenuItem();
+            menuItem.setText("Menu item " + i);
+            menuItem.setMnemonic('M');
+            if (i % 3 == 0) {
+                menuItem.setAccelerator(KeyStroke.getKeyStroke("ctrl shift " + (char) ('A' + i % 26)));
+            }
+            menu.add(menuItem);
+        }
+        return menu;
+    }
+}
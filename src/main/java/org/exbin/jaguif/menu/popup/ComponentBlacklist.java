@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Immutable blacklist of component classes.
+ * <p>
+ * Supported patterns:
+ * <ul>
+ * <li><code>org.example.Component</code> - exact binary class name</li>
+ * <li><code>org.example.*</code> - any class in package or its
+ * subpackages</li>
+ * <li><code>+org.example.Type</code> - type itself or any of its subclasses
+ * or implementations</li>
+ * </ul>
+ * Result is memoized per class, so repeated checks cost single cached
+ * access.
+ */
+@NullMarked
+public final class ComponentBlacklist {
+
+    public static final String PACKAGE_PATTERN_SUFFIX = ".*";
+    public static final String SUPERTYPE_PATTERN_PREFIX = "+";
+
+    /**
+     * Blacklist without any patterns.
+     */
+    public static final ComponentBlacklist EMPTY = new ComponentBlacklist(Collections.emptyList());
+
+    private final List<String> patterns;
+    private final Set<String> classNames = new HashSet<>();
+    private final Set<String> superTypeNames = new HashSet<>();
+    private final String[] packagePrefixes;
+    private final ClassValue<Boolean> blacklistedClasses = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return matches(type);
+        }
+    };
+
+    private ComponentBlacklist(Collection<String> patterns) {
+        List<String> packages = new ArrayList<>();
+        List<String> validPatterns = new ArrayList<>();
+        for (String pattern : patterns) {
+            String trimmedPattern = pattern.trim();
+            if (trimmedPattern.isEmpty()) {
+                continue;
+            }
+
+            if (trimmedPattern.startsWith(SUPERTYPE_PATTERN_PREFIX)) {
+                superTypeNames.add(trimmedPattern.substring(SUPERTYPE_PATTERN_PREFIX.length()).trim());
+            } else if (trimmedPattern.endsWith(PACKAGE_PATTERN_SUFFIX)) {
+                // Keep trailing dot so that package name prefix is not matched
+                packages.add(trimmedPattern.substring(0, trimmedPattern.length() - 1));
+            } else {
+                classNames.add(trimmedPattern);
+            }
+            validPatterns.add(trimmedPattern);
+        }
+        this.patterns = Collections.unmodifiableList(validPatterns);
+        packagePrefixes = packages.toArray(new String[0]);
+    }
+
+    /**
+     * Creates blacklist from given patterns.
+     *
+     * @param patterns patterns
+     * @return component blacklist
+     */
+    public static ComponentBlacklist of(Collection<String> patterns) {
+        return new ComponentBlacklist(patterns);
+    }
+
+    /**
+     * Creates blacklist from patterns separated by comma, semicolon or white
+     * space.
+     *
+     * @param patterns patterns
+     * @return component blacklist
+     */
+    public static ComponentBlacklist parse(String patterns) {
+        String trimmedPatterns = patterns.trim();
+        if (trimmedPatterns.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<String> patternsList = new ArrayList<>();
+        Collections.addAll(patternsList, trimmedPatterns.split("[,;\\s]+"));
+        return new ComponentBlacklist(patternsList);
+    }
+
+    /**
+     * Returns patterns of this blacklist.
+     *
+     * @return list of patterns
+     */
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Returns patterns as single string parseable by {@link #parse(String)}.
+     *
+     * @return patterns separated by comma
+     */
+    public String toPatternsString() {
+        return String.join(",", patterns);
+    }
+
+    /**
+     * Returns whether given class is blacklisted.
+     *
+     * @param type class
+     * @return true if blacklisted
+     */
+    public boolean isBlacklisted(Class<?> type) {
+        return blacklistedClasses.get(type);
+    }
+
+    private boolean matches(Class<?> type) {
+        String className = type.getName();
+        if (classNames.contains(className)) {
+            return true;
+        }
+
+        for (String packagePrefix : packagePrefixes) {
+            if (className.startsWith(packagePrefix)) {
+                return true;
+            }
+        }
+
+        if (superTypeNames.isEmpty()) {
+            return false;
+        }
+
+        Set<Class<?>> visited = new HashSet<>();
+        Deque<Class<?>> types = new ArrayDeque<>();
+        types.add(type);
+        while (!types.isEmpty()) {
+            Class<?> superType = types.poll();
+            if (!visited.add(superType)) {
+                continue;
+            }
+
+            if (superTypeNames.contains(superType.getName())) {
+                return true;
+            }
+
+            Class<?> superClass = superType.getSuperclass();
+            if (superClass != null) {
+                types.add(superClass);
+            }
+            Collections.addAll(types, superType.getInterfaces());
+        }
+
+        return false;
+    }
+}
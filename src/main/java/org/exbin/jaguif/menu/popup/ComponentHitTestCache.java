@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import javax.swing.JComponent;
+import javax.swing.JRootPane;
+import javax.swing.RootPaneContainer;
+import javax.swing.SwingUtilities;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Cache of hit-test indexes per root container.
+ * <p>
+ * Index is stored as client property of root pane, so it is released together
+ * with its window. Indexes are invalidated by component, container and
+ * hierarchy events observed on AWT toolkit while cache is installed.
+ */
+@NullMarked
+public final class ComponentHitTestCache implements AWTEventListener {
+
+    /**
+     * Mask of events invalidating hit-test index.
+     */
+    public static final long INVALIDATION_EVENT_MASK = AWTEvent.COMPONENT_EVENT_MASK | AWTEvent.CONTAINER_EVENT_MASK | AWTEvent.HIERARCHY_EVENT_MASK | AWTEvent.HIERARCHY_BOUNDS_EVENT_MASK;
+
+    private static final Object HIT_TEST_INDEX_KEY = new Object();
+
+    private boolean installed = false;
+
+    public ComponentHitTestCache() {
+    }
+
+    /**
+     * Starts observing of hierarchy changes.
+     */
+    public void install() {
+        if (!installed) {
+            Toolkit.getDefaultToolkit().addAWTEventListener(this, INVALIDATION_EVENT_MASK);
+            installed = true;
+        }
+    }
+
+    /**
+     * Stops observing of hierarchy changes, indexes are not used anymore.
+     */
+    public void uninstall() {
+        if (installed) {
+            Toolkit.getDefaultToolkit().removeAWTEventListener(this);
+            installed = false;
+        }
+    }
+
+    public boolean isInstalled() {
+        return installed;
+    }
+
+    /**
+     * Returns the deepest visible component at given position, same as
+     * {@link SwingUtilities#getDeepestComponentAt(Component, int, int)}.
+     * <p>
+     * Index is used only if parent is root of component hierarchy.
+     *
+     * @param parent parent component
+     * @param x x position relative to parent
+     * @param y y position relative to parent
+     * @return component or null
+     */
+    @Nullable
+    public Component getDeepestComponentAt(Component parent, int x, int y) {
+        if (installed && parent.getParent() == null && parent instanceof Container) {
+            ComponentHitTestIndex index = getIndex((Container) parent);
+            if (index != null) {
+                return index.getDeepestComponentAt(x, y);
+            }
+        }
+
+        return SwingUtilities.getDeepestComponentAt(parent, x, y);
+    }
+
+    @Nullable
+    private static ComponentHitTestIndex getIndex(Container root) {
+        JComponent holder = getIndexHolder(root);
+        if (holder == null) {
+            return null;
+        }
+
+        ComponentHitTestIndex index = (ComponentHitTestIndex) holder.getClientProperty(HIT_TEST_INDEX_KEY);
+        if (index == null) {
+            index = new ComponentHitTestIndex(root);
+            holder.putClientProperty(HIT_TEST_INDEX_KEY, index);
+        }
+
+        return index;
+    }
+
+    @Nullable
+    private static JComponent getIndexHolder(Component root) {
+        if (root instanceof RootPaneContainer) {
+            JRootPane rootPane = ((RootPaneContainer) root).getRootPane();
+            if (rootPane != null) {
+                return rootPane;
+            }
+        }
+
+        return root instanceof JComponent ? (JComponent) root : null;
+    }
+
+    @Override
+    public void eventDispatched(AWTEvent event) {
+        Object source = event.getSource();
+        if (!(source instanceof Component)) {
+            return;
+        }
+
+        Component root = (Component) source;
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+
+        JComponent holder = getIndexHolder(root);
+        if (holder != null) {
+            ComponentHitTestIndex index = (ComponentHitTestIndex) holder.getClientProperty(HIT_TEST_INDEX_KEY);
+            if (index != null) {
+                index.invalidate();
+            }
+        }
+    }
+}
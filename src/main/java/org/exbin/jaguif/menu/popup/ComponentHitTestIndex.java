@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Hit-test index of component hierarchy under single root container.
+ * <p>
+ * Visible components are stored in preorder together with their bounds in
+ * root coordinates and distributed to uniform grid of cells. Search for the
+ * deepest component then scans only candidates of single cell instead of
+ * walking the whole hierarchy. Index is rebuilt lazily after invalidation and
+ * each result is verified, so that stale index falls back to regular search.
+ * <p>
+ * Index is not thread-safe and is expected to be used from event dispatch
+ * thread only.
+ */
+@NullMarked
+public final class ComponentHitTestIndex {
+
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    private static final int[] EMPTY_CELL = new int[0];
+
+    private final Container root;
+    private final int cellSize;
+    private boolean valid = false;
+
+    private @Nullable Component[] components = new Component[0];
+    private int[] parents = new int[0];
+    private int[] boundsX = new int[0];
+    private int[] boundsY = new int[0];
+    private int[] boundsWidth = new int[0];
+    private int[] boundsHeight = new int[0];
+    private int componentsCount;
+    private int columns;
+    private int rows;
+    private int[][] cells = new int[0][];
+
+    public ComponentHitTestIndex(Container root) {
+        this(root, DEFAULT_CELL_SIZE);
+    }
+
+    public ComponentHitTestIndex(Container root, int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Invalid cell size: " + cellSize);
+        }
+        this.root = root;
+        this.cellSize = cellSize;
+    }
+
+    public Container getRoot() {
+        return root;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Marks index for rebuild on next search.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns number of indexed components.
+     *
+     * @return number of components
+     */
+    public int getComponentsCount() {
+        if (!valid) {
+            rebuild();
+        }
+        return componentsCount;
+    }
+
+    /**
+     * Returns the deepest visible component at given position, same as
+     * {@link SwingUtilities#getDeepestComponentAt(Component, int, int)}.
+     *
+     * @param x x position in root coordinates
+     * @param y y position in root coordinates
+     * @return component or null if position is outside of root
+     */
+    @Nullable
+    public Component getDeepestComponentAt(int x, int y) {
+        if (!valid) {
+            rebuild();
+        }
+
+        Component component = findDeepestComponent(x, y);
+        if (isConsistent(component, x, y)) {
+            return component;
+        }
+
+        // Hierarchy changed without notification yet
+        rebuild();
+        component = findDeepestComponent(x, y);
+        if (isConsistent(component, x, y)) {
+            return component;
+        }
+
+        return SwingUtilities.getDeepestComponentAt(root, x, y);
+    }
+
+    @Nullable
+    private Component findDeepestComponent(int x, int y) {
+        if (componentsCount == 0 || x < 0 || y < 0 || x >= boundsWidth[0] || y >= boundsHeight[0]) {
+            return null;
+        }
+
+        // Candidates are in preorder, so first matching child of current
+        // component is the topmost one and its subtree follows it directly
+        int current = 0;
+        for (int index : cells[(y / cellSize) * columns + x / cellSize]) {
+            if (parents[index] == current && x >= boundsX[index] && y >= boundsY[index] && x < boundsX[index] + boundsWidth[index] && y < boundsY[index] + boundsHeight[index]) {
+                current = index;
+            }
+        }
+
+        return components[current];
+    }
+
+    private boolean isConsistent(@Nullable Component component, int x, int y) {
+        if (component == null) {
+            return !root.contains(x, y);
+        }
+
+        if (component == root) {
+            return root.contains(x, y);
+        }
+
+        int localX = x;
+        int localY = y;
+        for (Component parent = component; parent != root; parent = parent.getParent()) {
+            if (parent == null || !parent.isVisible()) {
+                return false;
+            }
+            localX -= parent.getX();
+            localY -= parent.getY();
+        }
+
+        return component.contains(localX, localY);
+    }
+
+    private void rebuild() {
+        componentsCount = 0;
+        addComponent(root, -1, 0, 0);
+        if (components.length > componentsCount * 2) {
+            trimArrays();
+        } else {
+            // Release removed components
+            Arrays.fill(components, componentsCount, components.length, null);
+        }
+
+        int rootWidth = boundsWidth[0];
+        int rootHeight = boundsHeight[0];
+        columns = Math.max(1, (rootWidth + cellSize - 1) / cellSize);
+        rows = Math.max(1, (rootHeight + cellSize - 1) / cellSize);
+
+        // First pass counts candidates per cell, second pass fills them in preorder
+        int[] cellSizes = new int[columns * rows];
+        for (int index = 1; index < componentsCount; index++) {
+            forEachCell(index, rootWidth, rootHeight, cellSizes, null);
+        }
+        cells = new int[cellSizes.length][];
+        for (int cell = 0; cell < cellSizes.length; cell++) {
+            cells[cell] = cellSizes[cell] == 0 ? EMPTY_CELL : new int[cellSizes[cell]];
+            cellSizes[cell] = 0;
+        }
+        for (int index = 1; index < componentsCount; index++) {
+            forEachCell(index, rootWidth, rootHeight, cellSizes, cells);
+        }
+
+        valid = true;
+    }
+
+    private void forEachCell(int index, int rootWidth, int rootHeight, int[] cellSizes, int @Nullable [][] targetCells) {
+        int x = boundsX[index];
+        int y = boundsY[index];
+        int right = Math.min(x + boundsWidth[index], rootWidth) - 1;
+        int bottom = Math.min(y + boundsHeight[index], rootHeight) - 1;
+        if (right < 0 || bottom < 0 || x >= rootWidth || y >= rootHeight) {
+            return;
+        }
+
+        int firstColumn = Math.max(x, 0) / cellSize;
+        int lastColumn = right / cellSize;
+        int firstRow = Math.max(y, 0) / cellSize;
+        int lastRow = bottom / cellSize;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                if (targetCells != null) {
+                    targetCells[cell][cellSizes[cell]] = index;
+                }
+                cellSizes[cell]++;
+            }
+        }
+    }
+
+    private void addComponent(Component component, int parent, int offsetX, int offsetY) {
+        int index = componentsCount;
+        if (index == components.length) {
+            growArrays();
+        }
+        componentsCount++;
+
+        int x = parent < 0 ? 0 : offsetX + component.getX();
+        int y = parent < 0 ? 0 : offsetY + component.getY();
+        components[index] = component;
+        parents[index] = parent;
+        boundsX[index] = x;
+        boundsY[index] = y;
+        boundsWidth[index] = component.getWidth();
+        boundsHeight[index] = component.getHeight();
+
+        if (component instanceof Container) {
+            for (Component child : ((Container) component).getComponents()) {
+                if (child != null && child.isVisible()) {
+                    addComponent(child, index, x, y);
+                }
+            }
+        }
+    }
+
+    private void growArrays() {
+        resizeArrays(Math.max(16, components.length * 2));
+    }
+
+    private void trimArrays() {
+        resizeArrays(componentsCount);
+    }
+
+    private void resizeArrays(int length) {
+        components = Arrays.copyOf(components, length);
+        parents = Arrays.copyOf(parents, length);
+        boundsX = Arrays.copyOf(boundsX, length);
+        boundsY = Arrays.copyOf(boundsY, length);
+        boundsWidth = Arrays.copyOf(boundsWidth, length);
+        boundsHeight = Arrays.copyOf(boundsHeight, length);
+    }
+}
@@ -20,40 +20,45 @@ import java.awt.Component;
 import java.awt.EventQueue;
 import java.awt.KeyboardFocusManager;
 import java.awt.Point;
-import java.awt.Rectangle;
 import java.awt.ScrollPane;
 import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.jspecify.annotations.Nullable;
 import org.jspecify.annotations.NullMarked;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ActionMap;
-import javax.swing.JEditorPane;
-import javax.swing.JList;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
-import javax.swing.JTable;
 import javax.swing.JViewport;
 import javax.swing.MenuSelectionManager;
 import javax.swing.SwingUtilities;
 import javax.swing.TransferHandler;
-import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultEditorKit;
 import javax.swing.text.JTextComponent;
-import org.exbin.jaguif.menu.popup.handler.EditorPanePopupHandler;
-import org.exbin.jaguif.menu.popup.handler.ListPopupHandler;
-import org.exbin.jaguif.menu.popup.handler.TablePopupHandler;
-import org.exbin.jaguif.menu.popup.handler.TextComponentPopupHandler;
 import org.exbin.jaguif.utils.ActionUtils;
 import org.exbin.jaguif.menu.popup.api.ComponentPopupEventDispatcher;
+import org.exbin.jaguif.menu.popup.api.PopupItemsContributor;
+import org.exbin.jaguif.menu.popup.trace.PopupEventTraceWriter;
+import org.exbin.jaguif.action.api.clipboard.ClipboardStateListener;
 import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.exbin.jaguif.utils.ClipboardUtils;
 import org.exbin.jaguif.utils.LanguageUtils;
 import org.exbin.jaguif.utils.UiUtils;
 
@@ -82,6 +87,11 @@ public class DefaultPopupMenu {
     public static final String POPUP_COPY_IMAGE_ACTION_NAME = "copy-image";
     public static final String POPUP_OPEN_LINK_ACTION_NAME = "open-link";
 
+    /**
+     * Mask of events delivered to popup event listener.
+     */
+    public static final long POPUP_EVENT_MASK = AWTEvent.MOUSE_EVENT_MASK | AWTEvent.KEY_EVENT_MASK;
+
     protected ActionMap defaultTextActionMap;
     protected DefaultPopupClipboardAction[] defaultTextActions;
     protected DefaultPopupClipboardAction defaultCutAction;
@@ -94,7 +104,25 @@ public class DefaultPopupMenu {
     protected DefaultPopupClipboardAction openLinkAction;
     protected DefaultPopupClipboardAction copyImageAction;
 
-    protected final List<ComponentPopupEventDispatcher> clipboardEventDispatchers = new ArrayList<>();
+    protected final AtomicReference<PopupEventDispatcherChain> dispatcherChain = new AtomicReference<>(PopupEventDispatcherChain.EMPTY);
+    protected PopupEventFilter eventFilter = PopupEventFilter.POPUP_TRIGGER_EVENTS;
+    protected final PopupTiming timing = new PopupTiming();
+    protected final PopupLatency latency = new PopupLatency(timing);
+    protected PopupHandlerRegistry handlerRegistry = PopupHandlerRegistry.getInstance();
+    protected final ComponentHitTestCache hitTestCache = new ComponentHitTestCache();
+    protected final PopupMenuTemplateCache templateCache = new PopupMenuTemplateCache();
+    @Nullable
+    protected volatile PopupEventTraceWriter traceWriter = null;
+    @Nullable
+    protected PopupPrewarmer prewarmer = null;
+    protected final List<PopupItemsContributor> itemsContributors = new CopyOnWriteArrayList<>();
+    protected volatile boolean deferredItemsEnabled = false;
+    @Nullable
+    private ExecutorService deferredItemsExecutor = null;
+    protected final ClipboardStateListener clipboardStateListener = this::updatePasteAction;
+
+    private long shortCircuitedEventsCount = 0;
+    private long processedEventsCount = 0;
 
     private static DefaultPopupMenu instance = null;
 
@@ -113,9 +141,19 @@ public class DefaultPopupMenu {
      * Registers default popup menu to AWT.
      */
     public static void register() {
+        register(EventRegistrationMode.EVENT_QUEUE);
+    }
+
+    /**
+     * Registers default popup menu to AWT.
+     *
+     * @param registrationMode registration mode
+     */
+    public static void register(EventRegistrationMode registrationMode) {
         DefaultPopupMenu defaultPopupMenu = getInstance();
         defaultPopupMenu.initDefaultPopupMenu();
-        defaultPopupMenu.registerToEventQueue();
+        defaultPopupMenu.setTemplateCacheEnabled(true);
+        defaultPopupMenu.registerEvents(registrationMode);
     }
 
     /**
@@ -125,9 +163,21 @@ public class DefaultPopupMenu {
      * @param resourceClass resource class
      */
     public static void register(ResourceBundle resourceBundle, Class<?> resourceClass) {
+        register(resourceBundle, resourceClass, EventRegistrationMode.EVENT_QUEUE);
+    }
+
+    /**
+     * Registers default popup menu to AWT.
+     *
+     * @param resourceBundle resource bundle
+     * @param resourceClass resource class
+     * @param registrationMode registration mode
+     */
+    public static void register(ResourceBundle resourceBundle, Class<?> resourceClass, EventRegistrationMode registrationMode) {
         DefaultPopupMenu defaultPopupMenu = getInstance();
         defaultPopupMenu.initDefaultPopupMenu(resourceBundle, resourceClass);
-        defaultPopupMenu.registerToEventQueue();
+        defaultPopupMenu.setTemplateCacheEnabled(true);
+        defaultPopupMenu.registerEvents(registrationMode);
     }
 
     public void appendTextMenu(JMenu menu, final TextActionsHandler handler) {
@@ -208,8 +258,20 @@ public class DefaultPopupMenu {
         return copyImageMenuAction;
     }
 
-    private void registerToEventQueue() {
-        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new PopupEventQueue());
+    private void registerEvents(EventRegistrationMode registrationMode) {
+        switch (registrationMode) {
+            case EVENT_QUEUE: {
+                Toolkit.getDefaultToolkit().getSystemEventQueue().push(new PopupEventQueue());
+                break;
+            }
+            case AWT_EVENT_LISTENER: {
+                Toolkit.getDefaultToolkit().addAWTEventListener(new PopupEventListener(), POPUP_EVENT_MASK);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unexpected registration mode: " + registrationMode);
+        }
+        ClipboardUtils.addClipboardStateListener(clipboardStateListener);
     }
 
     private void initDefaultPopupMenu() {
@@ -217,6 +279,8 @@ public class DefaultPopupMenu {
     }
 
     protected void initDefaultPopupMenu(ResourceBundle resourceBundle, Class<?> resourceClass) {
+        // Cached menus are bound to previous actions
+        templateCache.clear();
         defaultTextActionMap = new ActionMap();
         defaultCutAction = new DefaultPopupClipboardAction(DefaultEditorKit.cutAction) {
             @Override
@@ -225,9 +289,9 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                setEnabled(clipboardHandler.isEditable() && clipboardHandler.hasSelection());
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.isEditable() && actionsState.hasSelection());
             }
         };
         ActionUtils.initAction(defaultCutAction, resourceBundle, resourceClass, POPUP_CUT_ACTION_ID);
@@ -242,9 +306,9 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                setEnabled(clipboardHandler.hasSelection());
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.hasSelection());
             }
         };
         ActionUtils.initAction(defaultCopyAction, resourceBundle, resourceClass, POPUP_COPY_ACTION_ID);
@@ -259,9 +323,9 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                setEnabled(clipboardHandler.isEditable());
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.canPaste());
             }
         };
         ActionUtils.initAction(defaultPasteAction, resourceBundle, resourceClass, POPUP_PASTE_ACTION_ID);
@@ -276,9 +340,9 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                setEnabled(clipboardHandler.canDelete() && clipboardHandler.hasSelection());
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.canDelete() && actionsState.hasSelection());
             }
         };
         ActionUtils.initAction(defaultDeleteAction, resourceBundle, resourceClass, POPUP_DELETE_ACTION_ID);
@@ -293,9 +357,9 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                setEnabled(clipboardHandler.canSelectAll());
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.canSelectAll());
             }
         };
         ActionUtils.initAction(defaultSelectAllAction, resourceBundle, resourceClass, POPUP_SELECT_ALL_ACTION_ID);
@@ -315,22 +379,19 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                boolean updateEnabled;
-                if (mouseEvent != null && clipboardHandler instanceof PositionTextActionsHandler) {
-                    updateEnabled = ((PositionTextActionsHandler) clipboardHandler).isTextSelected(mouseEvent.getLocationOnScreen());
-                } else {
-                    updateEnabled = clipboardHandler instanceof TextActionsHandler && ((TextActionsHandler) clipboardHandler).isTextSelected();
-                }
-                setEnabled(updateEnabled);
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.isTextSelected());
             }
         };
         ActionUtils.initAction(copyTextAction, resourceBundle, resourceClass, POPUP_COPY_TEXT_ACTION_ID);
         copyLinkAction = new DefaultPopupClipboardAction(POPUP_COPY_LINK_ACTION_NAME) {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (mouseEvent != null && clipboardHandler instanceof PositionLinkActionsHandler) {
+                String linkUrl = actionsState.getLinkUrl();
+                if (linkUrl != null && clipboardHandler instanceof LinkActionsHandler) {
+                    ((LinkActionsHandler) clipboardHandler).performCopyLink(linkUrl);
+                } else if (mouseEvent != null && clipboardHandler instanceof PositionLinkActionsHandler) {
                     ((PositionLinkActionsHandler) clipboardHandler).performCopyLink(mouseEvent.getLocationOnScreen());
                 } else {
                     ((LinkActionsHandler) clipboardHandler).performCopyLink();
@@ -338,22 +399,19 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                boolean updateEnabled;
-                if (mouseEvent != null && clipboardHandler instanceof PositionLinkActionsHandler) {
-                    updateEnabled = ((PositionLinkActionsHandler) clipboardHandler).isLinkSelected(mouseEvent.getLocationOnScreen());
-                } else {
-                    updateEnabled = clipboardHandler instanceof LinkActionsHandler && ((LinkActionsHandler) clipboardHandler).isLinkSelected();
-                }
-                setEnabled(updateEnabled);
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.isLinkSelected());
             }
         };
         ActionUtils.initAction(copyLinkAction, resourceBundle, resourceClass, POPUP_COPY_LINK_ACTION_ID);
         openLinkAction = new DefaultPopupClipboardAction(POPUP_OPEN_LINK_ACTION_NAME) {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (mouseEvent != null && clipboardHandler instanceof PositionLinkActionsHandler) {
+                String linkUrl = actionsState.getLinkUrl();
+                if (linkUrl != null && clipboardHandler instanceof LinkActionsHandler) {
+                    ((LinkActionsHandler) clipboardHandler).performOpenLink(linkUrl);
+                } else if (mouseEvent != null && clipboardHandler instanceof PositionLinkActionsHandler) {
                     ((PositionLinkActionsHandler) clipboardHandler).performOpenLink(mouseEvent.getLocationOnScreen());
                 } else {
                     ((LinkActionsHandler) clipboardHandler).performOpenLink();
@@ -361,22 +419,19 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                boolean updateEnabled;
-                if (mouseEvent != null && clipboardHandler instanceof PositionLinkActionsHandler) {
-                    updateEnabled = ((PositionLinkActionsHandler) clipboardHandler).isLinkSelected(mouseEvent.getLocationOnScreen());
-                } else {
-                    updateEnabled = clipboardHandler instanceof LinkActionsHandler && ((LinkActionsHandler) clipboardHandler).isLinkSelected();
-                }
-                setEnabled(updateEnabled);
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.isLinkSelected());
             }
         };
         ActionUtils.initAction(openLinkAction, resourceBundle, resourceClass, POPUP_OPEN_LINK_ACTION_ID);
         copyImageAction = new DefaultPopupClipboardAction(POPUP_COPY_IMAGE_ACTION_NAME) {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (mouseEvent != null && clipboardHandler instanceof PositionImageActionsHandler) {
+                String imageSrc = actionsState.getImageSrc();
+                if (imageSrc != null && clipboardHandler instanceof ImageActionsHandler) {
+                    ((ImageActionsHandler) clipboardHandler).performCopyImage(imageSrc);
+                } else if (mouseEvent != null && clipboardHandler instanceof PositionImageActionsHandler) {
                     ((PositionImageActionsHandler) clipboardHandler).performCopyImage(mouseEvent.getLocationOnScreen());
                 } else {
                     ((ImageActionsHandler) clipboardHandler).performCopyImage();
@@ -384,23 +439,17 @@ public class DefaultPopupMenu {
             }
 
             @Override
-            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
-                super.updateFor(clipboardHandler, mouseEvent);
-                boolean updateEnabled;
-                if (mouseEvent != null && clipboardHandler instanceof PositionImageActionsHandler) {
-                    updateEnabled = ((PositionImageActionsHandler) clipboardHandler).isImageSelected(mouseEvent.getLocationOnScreen());
-                } else {
-                    updateEnabled = clipboardHandler instanceof ImageActionsHandler && ((ImageActionsHandler) clipboardHandler).isImageSelected();
-                }
-                setEnabled(updateEnabled);
+            public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+                super.updateFor(clipboardHandler, mouseEvent, actionsState);
+                setEnabled(actionsState.isImageSelected());
             }
         };
         ActionUtils.initAction(copyImageAction, resourceBundle, resourceClass, POPUP_COPY_IMAGE_ACTION_ID);
     }
 
     public void fillDefaultPopupMenu(JPopupMenu popupMenu, int position) {
-        JMenuItem basicPopupCopyMenuItem = new javax.swing.JMenuItem();
-        JMenuItem basicPopupSelectAllMenuItem = new javax.swing.JMenuItem();
+        JMenuItem basicPopupCopyMenuItem = UiUtils.createMenuItem();
+        JMenuItem basicPopupSelectAllMenuItem = UiUtils.createMenuItem();
 
         basicPopupCopyMenuItem.setAction(defaultCopyAction);
         basicPopupCopyMenuItem.setName("basicEditPopupCopyMenuItem"); // NOI18N
@@ -419,11 +468,11 @@ public class DefaultPopupMenu {
     }
 
     public void fillDefaultEditPopupMenu(JPopupMenu popupMenu, int position) {
-        JMenuItem basicPopupCutMenuItem = new javax.swing.JMenuItem();
-        JMenuItem basicPopupCopyMenuItem = new javax.swing.JMenuItem();
-        JMenuItem basicPopupPasteMenuItem = new javax.swing.JMenuItem();
-        JMenuItem basicPopupDeleteMenuItem = new javax.swing.JMenuItem();
-        JMenuItem basicPopupSelectAllMenuItem = new javax.swing.JMenuItem();
+        JMenuItem basicPopupCutMenuItem = UiUtils.createMenuItem();
+        JMenuItem basicPopupCopyMenuItem = UiUtils.createMenuItem();
+        JMenuItem basicPopupPasteMenuItem = UiUtils.createMenuItem();
+        JMenuItem basicPopupDeleteMenuItem = UiUtils.createMenuItem();
+        JMenuItem basicPopupSelectAllMenuItem = UiUtils.createMenuItem();
 
         basicPopupCutMenuItem.setAction(defaultCutAction);
         basicPopupCutMenuItem.setName("basicPopupCutMenuItem");
@@ -453,130 +502,371 @@ public class DefaultPopupMenu {
         }
     }
 
+    /**
+     * Adds popup event dispatcher.
+     * <p>
+     * Can be called from any thread.
+     *
+     * @param dispatcher dispatcher
+     */
     public void addClipboardEventDispatcher(ComponentPopupEventDispatcher dispatcher) {
-        clipboardEventDispatchers.add(dispatcher);
+        dispatcherChain.updateAndGet(chain -> chain.with(dispatcher));
     }
 
+    /**
+     * Removes popup event dispatcher.
+     * <p>
+     * Can be called from any thread.
+     *
+     * @param dispatcher dispatcher
+     */
     public void removeClipboardEventDispatcher(ComponentPopupEventDispatcher dispatcher) {
-        clipboardEventDispatchers.remove(dispatcher);
+        dispatcherChain.updateAndGet(chain -> chain.without(dispatcher));
     }
 
-    protected void processAWTEvent(AWTEvent event) {
-        if (event.getID() == MouseEvent.MOUSE_RELEASED || event.getID() == MouseEvent.MOUSE_PRESSED) {
-            MouseEvent mouseEvent = (MouseEvent) event;
+    /**
+     * Adds contributor of additional popup menu items.
+     * <p>
+     * Can be called from any thread.
+     *
+     * @param contributor items contributor
+     */
+    public void addItemsContributor(PopupItemsContributor contributor) {
+        itemsContributors.add(contributor);
+    }
 
-            if (mouseEvent.isPopupTrigger()) {
-                if (MenuSelectionManager.defaultManager().getSelectedPath().length > 0) {
-                    // Menu was already created
-                    return;
-                }
+    /**
+     * Removes contributor of additional popup menu items.
+     * <p>
+     * Can be called from any thread.
+     *
+     * @param contributor items contributor
+     */
+    public void removeItemsContributor(PopupItemsContributor contributor) {
+        itemsContributors.remove(contributor);
+    }
 
-                for (ComponentPopupEventDispatcher dispatcher : clipboardEventDispatchers) {
-                    if (dispatcher.dispatchMouseEvent(mouseEvent)) {
-                        return;
-                    }
-                }
+    /**
+     * Returns current chain of popup event dispatchers.
+     *
+     * @return dispatcher chain
+     */
+    public PopupEventDispatcherChain getDispatcherChain() {
+        return dispatcherChain.get();
+    }
 
-                Component component = getSource(mouseEvent);
-                if (component instanceof JViewport) {
-                    component = ((JViewport) component).getView();
-                }
+    /**
+     * Returns registry of popup handlers per component class.
+     *
+     * @return popup handler registry
+     */
+    public PopupHandlerRegistry getHandlerRegistry() {
+        return handlerRegistry;
+    }
 
-                if (component instanceof JEditorPane) {
-                    activateMousePopup(mouseEvent, component, new EditorPanePopupHandler((JEditorPane) component));
-                } else if (component instanceof JTextComponent) {
-                    activateMousePopup(mouseEvent, component, new TextComponentPopupHandler((JTextComponent) component));
-                } else if (component instanceof JList) {
-                    activateMousePopup(mouseEvent, component, new ListPopupHandler((JList<?>) component));
-                } else if (component instanceof JTable) {
-                    activateMousePopup(mouseEvent, component, new TablePopupHandler((JTable) component));
-                }
+    public void setHandlerRegistry(PopupHandlerRegistry handlerRegistry) {
+        this.handlerRegistry = handlerRegistry;
+    }
+
+    public boolean isHitTestIndexEnabled() {
+        return hitTestCache.isInstalled();
+    }
+
+    /**
+     * Sets whether search for component under mouse cursor should use cached
+     * hit-test index per window.
+     *
+     * @param enabled true to enable hit-test index
+     */
+    public void setHitTestIndexEnabled(boolean enabled) {
+        if (enabled) {
+            hitTestCache.install();
+        } else {
+            hitTestCache.uninstall();
+        }
+    }
+
+    public boolean isTemplateCacheEnabled() {
+        return templateCache.isEnabled();
+    }
+
+    /**
+     * Sets whether popup menus should be reused for the same menu shape
+     * instead of being built for each popup trigger.
+     *
+     * @param enabled true to enable popup menu templates cache
+     */
+    public void setTemplateCacheEnabled(boolean enabled) {
+        templateCache.setEnabled(enabled);
+    }
+
+    public boolean isDeferredItemsEnabled() {
+        return deferredItemsEnabled;
+    }
+
+    /**
+     * Sets whether link, image and contributed popup items should be resolved
+     * in background and inserted into already visible popup menu.
+     *
+     * @param enabled true to enable deferred popup items
+     */
+    public void setDeferredItemsEnabled(boolean enabled) {
+        deferredItemsEnabled = enabled;
+    }
+
+    /**
+     * Returns self-timing of popup handling.
+     *
+     * @return popup timing
+     */
+    public PopupTiming getTiming() {
+        return timing;
+    }
+
+    /**
+     * Returns latencies of popup handling recorded when self-timing is
+     * enabled.
+     *
+     * @return popup latency
+     */
+    public PopupLatency getLatency() {
+        return latency;
+    }
+
+    /**
+     * Processes event with measuring of processing time when self-timing is
+     * enabled.
+     *
+     * @param event AWT event
+     */
+    protected void processTimedAWTEvent(AWTEvent event) {
+        if (!timing.isEnabled()) {
+            processAWTEvent(event);
+            return;
+        }
+
+        long start = System.nanoTime();
+        processAWTEvent(event);
+        timing.recordPopupProcessing(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns number of events skipped by event filter without any further
+     * processing.
+     * <p>
+     * Counters are updated from event dispatch thread only.
+     *
+     * @return number of short-circuited events
+     */
+    public long getShortCircuitedEventsCount() {
+        return shortCircuitedEventsCount;
+    }
+
+    /**
+     * Returns number of events passed by event filter for processing.
+     *
+     * @return number of processed events
+     */
+    public long getProcessedEventsCount() {
+        return processedEventsCount;
+    }
+
+    /**
+     * Resets event counters.
+     */
+    public void resetEventCounters() {
+        shortCircuitedEventsCount = 0;
+        processedEventsCount = 0;
+    }
+
+    /**
+     * Starts recording of mouse and key events passing through popup event
+     * queue to binary trace.
+     * <p>
+     * Recording is not available for AWT event listener registration.
+     *
+     * @param outputStream output stream
+     * @throws IOException if writing of trace header failed
+     */
+    public void startTraceRecording(OutputStream outputStream) throws IOException {
+        stopTraceRecording();
+        traceWriter = new PopupEventTraceWriter(outputStream);
+    }
+
+    /**
+     * Stops recording of events and closes trace.
+     *
+     * @throws IOException if closing of trace failed
+     */
+    public void stopTraceRecording() throws IOException {
+        PopupEventTraceWriter writer = traceWriter;
+        traceWriter = null;
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    public boolean isTraceRecording() {
+        return traceWriter != null;
+    }
+
+    /**
+     * Records event to trace if recording is active.
+     *
+     * @param event AWT event
+     */
+    protected void recordTraceEvent(AWTEvent event) {
+        PopupEventTraceWriter writer = traceWriter;
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.write(event);
+        } catch (IOException ex) {
+            Logger.getLogger(DefaultPopupMenu.class.getName()).log(Level.WARNING, "Recording of popup event trace failed", ex);
+            traceWriter = null;
+            try {
+                writer.close();
+            } catch (IOException closeEx) {
+                // Already failed
             }
-        } else if (event.getID() == KeyEvent.KEY_PRESSED) {
+        }
+    }
+
+    /**
+     * Returns whether event can be relevant for popup handling and updates
+     * event counters.
+     *
+     * @param event AWT event
+     * @return true if event should be processed
+     */
+    protected boolean isPopupEvent(AWTEvent event) {
+        if (eventFilter.accepts(event.getID())) {
+            processedEventsCount++;
+            return true;
+        }
+
+        shortCircuitedEventsCount++;
+        return false;
+    }
+
+    /**
+     * Returns whether event is trigger of popup handling.
+     *
+     * @param event AWT event
+     * @return true if event is popup trigger
+     */
+    protected boolean isPopupTriggerEvent(AWTEvent event) {
+        int eventId = event.getID();
+        if (eventId == MouseEvent.MOUSE_RELEASED || eventId == MouseEvent.MOUSE_PRESSED) {
+            return ((MouseEvent) event).isPopupTrigger();
+        } else if (eventId == KeyEvent.KEY_PRESSED) {
             KeyEvent keyEvent = (KeyEvent) event;
-            if (keyEvent.getKeyCode() == KeyEvent.VK_CONTEXT_MENU || (keyEvent.getKeyCode() == KeyEvent.VK_F10 && keyEvent.isShiftDown())) {
-                if (MenuSelectionManager.defaultManager().getSelectedPath().length > 0) {
-                    // Menu was already created
-                    return;
-                }
+            return keyEvent.getKeyCode() == KeyEvent.VK_CONTEXT_MENU || (keyEvent.getKeyCode() == KeyEvent.VK_F10 && keyEvent.isShiftDown());
+        }
 
-                for (ComponentPopupEventDispatcher dispatcher : clipboardEventDispatchers) {
-                    if (dispatcher.dispatchKeyEvent(keyEvent)) {
-                        return;
-                    }
-                }
+        return false;
+    }
 
-                Component component = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+    protected void processAWTEvent(AWTEvent event) {
+        if (!isPopupTriggerEvent(event)) {
+            return;
+        }
 
-                if (component instanceof JEditorPane) {
-                    Point point;
-                    try {
-                        @SuppressWarnings("deprecation")
-                        Rectangle relativeRect = ((JEditorPane) component).modelToView(((JTextComponent) component).getCaretPosition());
-                        point = relativeRect == null ? null : new Point((int) (relativeRect.getX() + relativeRect.getWidth()), (int) (relativeRect.getY() + relativeRect.getHeight()));
-                    } catch (BadLocationException ex) {
-                        point = null;
-                    }
-                    activateKeyPopup(component, point, new EditorPanePopupHandler((JEditorPane) component));
-                } else if (component instanceof JTextComponent) {
-                    Point point;
-                    try {
-                        @SuppressWarnings("deprecation")
-                        Rectangle relativeRect = ((JTextComponent) component).modelToView(((JTextComponent) component).getCaretPosition());
-                        point = relativeRect == null ? null : new Point((int) (relativeRect.getX() + relativeRect.getWidth()), (int) (relativeRect.getY() + relativeRect.getHeight()));
-                    } catch (BadLocationException ex) {
-                        point = null;
-                    }
-                    activateKeyPopup(component, point, new TextComponentPopupHandler((JTextComponent) component));
-                } else if (component instanceof JList) {
-                    Point point = null;
-                    int selectedIndex = ((JList<?>) component).getSelectedIndex();
-                    if (selectedIndex >= 0) {
-                        Rectangle cellBounds = ((JList<?>) component).getCellBounds(selectedIndex, selectedIndex);
-                        point = new Point(component.getWidth() / 2, cellBounds.y);
-                    }
-                    activateKeyPopup(component, point, new ListPopupHandler((JList<?>) component));
-                } else if (component instanceof JTable) {
-                    Point point = null;
-                    int selectedRow = ((JTable) component).getSelectedRow();
-                    if (selectedRow >= 0) {
-                        int selectedColumn = ((JTable) component).getSelectedColumn();
-                        if (selectedColumn < -1) {
-                            selectedColumn = 0;
-                        }
-                        Rectangle cellBounds = ((JTable) component).getCellRect(selectedRow, selectedColumn, false);
-                        point = new Point(cellBounds.x, cellBounds.y);
-                    }
-                    activateKeyPopup(component, point, new TablePopupHandler((JTable) component));
-                }
-            }
+        if (MenuSelectionManager.defaultManager().getSelectedPath().length > 0) {
+            // Menu was already created
+            return;
+        }
+
+        if (prewarmer != null) {
+            cancelPrewarm();
+        }
+
+        if (event.getID() == KeyEvent.KEY_PRESSED) {
+            processKeyPopupTrigger((KeyEvent) event);
+        } else {
+            processMousePopupTrigger((MouseEvent) event);
         }
     }
 
-    protected void activateMousePopup(MouseEvent mouseEvent, Component component, TextClipboardOperationController clipboardHandler) {
-        for (DefaultPopupClipboardAction action : defaultTextActions) {
-            action.updateFor(clipboardHandler, mouseEvent);
-            copyTextAction.updateFor(clipboardHandler, mouseEvent);
-            copyLinkAction.updateFor(clipboardHandler, mouseEvent);
-            openLinkAction.updateFor(clipboardHandler, mouseEvent);
-            copyImageAction.updateFor(clipboardHandler, mouseEvent);
+    protected void processMousePopupTrigger(MouseEvent mouseEvent) {
+        timing.begin();
+        Component component = getSource(mouseEvent);
+        if (component instanceof JViewport) {
+            component = ((JViewport) component).getView();
+        }
+        timing.endPhase(PopupTimingPhase.HIT_TEST);
+
+        if (dispatcherChain.get().dispatchMouseEvent(mouseEvent, component)) {
+            return;
+        }
+        timing.endPhase(PopupTimingPhase.DISPATCHER_CHAIN);
+
+        if (component == null) {
+            return;
         }
 
-        Point point = mouseEvent.getLocationOnScreen();
-        Point locationOnScreen = component.getLocationOnScreen();
-        point.translate(-locationOnScreen.x, -locationOnScreen.y);
+        PopupHandlerRegistry.Registration registration = handlerRegistry.getRegistration(component.getClass());
+        if (registration == null || !isMousePopupAllowed(component)) {
+            return;
+        }
+
+        TextClipboardOperationController clipboardHandler = registration.createHandler(component);
+        timing.endPhase(PopupTimingPhase.HANDLER_CREATION);
 
-        showPopupMenu(component, point, clipboardHandler);
+        activateMousePopup(mouseEvent, component, clipboardHandler);
     }
 
-    protected void activateKeyPopup(Component component, @Nullable Point point, TextClipboardOperationController clipboardHandler) {
-        for (DefaultPopupClipboardAction action : defaultTextActions) {
-            action.updateFor(clipboardHandler, null);
-            copyTextAction.updateFor(clipboardHandler, null);
-            copyLinkAction.updateFor(clipboardHandler, null);
-            openLinkAction.updateFor(clipboardHandler, null);
-            copyImageAction.updateFor(clipboardHandler, null);
+    protected void processKeyPopupTrigger(KeyEvent keyEvent) {
+        timing.begin();
+        Component component = getFocusOwner();
+        timing.endPhase(PopupTimingPhase.HIT_TEST);
+
+        if (dispatcherChain.get().dispatchKeyEvent(keyEvent, component)) {
+            return;
         }
+        timing.endPhase(PopupTimingPhase.DISPATCHER_CHAIN);
+
+        if (component == null) {
+            return;
+        }
+
+        PopupHandlerRegistry.Registration registration = handlerRegistry.getRegistration(component.getClass());
+        if (registration == null) {
+            return;
+        }
+
+        Point point = registration.locateAnchor(component);
+        TextClipboardOperationController clipboardHandler = registration.createHandler(component);
+        timing.endPhase(PopupTimingPhase.HANDLER_CREATION);
+
+        activateKeyPopup(component, point, clipboardHandler);
+    }
+
+    /**
+     * Returns whether popup menu can be shown for component under mouse
+     * cursor.
+     *
+     * @param component component with registered popup handler
+     * @return true if popup menu is allowed
+     */
+    protected boolean isMousePopupAllowed(Component component) {
+        return true;
+    }
+
+    protected void activateMousePopup(MouseEvent mouseEvent, Component component, TextClipboardOperationController clipboardHandler) {
+        PopupActionsState actionsState = updateActions(clipboardHandler, mouseEvent);
+        timing.endPhase(PopupTimingPhase.ACTION_UPDATE);
+
+        Point point = SwingUtilities.convertPoint(mouseEvent.getComponent(), mouseEvent.getPoint(), component);
+
+        showPopupMenu(component, point, clipboardHandler, actionsState, mouseEvent);
+    }
+
+    protected void activateKeyPopup(Component component, @Nullable Point point, TextClipboardOperationController clipboardHandler) {
+        PopupActionsState actionsState = updateActions(clipboardHandler, null);
+        timing.endPhase(PopupTimingPhase.ACTION_UPDATE);
 
         if (point == null) {
             if (component.getParent() instanceof ScrollPane) {
@@ -587,71 +877,336 @@ public class DefaultPopupMenu {
             }
         }
 
-        showPopupMenu(component, point, clipboardHandler);
+        showPopupMenu(component, point, clipboardHandler, actionsState, null);
     }
 
-    protected void showPopupMenu(Component component, Point point, TextClipboardOperationController handler) {
-        boolean editable = handler.isEditable();
+    /**
+     * Updates state of all popup actions for clipboard handler.
+     * <p>
+     * Capabilities of handler are queried once per popup trigger. When
+     * deferred popup items are enabled, link and image actions are left
+     * unresolved.
+     *
+     * @param clipboardHandler clipboard handler
+     * @param mouseEvent mouse popup trigger or null for keyboard trigger
+     * @return popup actions state
+     */
+    protected PopupActionsState updateActions(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
+        Point locationOnScreen = mouseEvent == null ? null : mouseEvent.getLocationOnScreen();
+        PopupActionsState actionsState = deferredItemsEnabled
+                ? PopupActionsState.ofClipboard(clipboardHandler, locationOnScreen)
+                : PopupActionsState.of(clipboardHandler, locationOnScreen);
+        updateActions(clipboardHandler, mouseEvent, actionsState);
+        return actionsState;
+    }
 
-        JPopupMenu popupMenu = UiUtils.createPopupMenu();
-        popupMenu.setName("defaultPopupMenu");
+    private void updateActions(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
+        for (DefaultPopupClipboardAction action : defaultTextActions) {
+            action.updateFor(clipboardHandler, mouseEvent, actionsState);
+        }
+        copyTextAction.updateFor(clipboardHandler, mouseEvent, actionsState);
+        copyLinkAction.updateFor(clipboardHandler, mouseEvent, actionsState);
+        openLinkAction.updateFor(clipboardHandler, mouseEvent, actionsState);
+        copyImageAction.updateFor(clipboardHandler, mouseEvent, actionsState);
+    }
 
-        boolean hasExtra = false;
-        if (handler instanceof TextActionsHandler) {
-            if (copyTextAction.isEnabled()) {
-                JMenuItem copyTextMenuItem = UiUtils.createMenuItem();
-                copyTextMenuItem.setAction(copyTextAction);
-                copyTextMenuItem.setName("basicCopyTextMenuItem");
-                popupMenu.add(copyTextMenuItem);
-                hasExtra = true;
-            }
+    /**
+     * Shows popup menu with items which are not part of popup menu template.
+     * <p>
+     * Unresolved link and image items and, in deferred mode, contributed items
+     * are resolved in background and inserted into visible popup menu.
+     *
+     * @param component invoker component
+     * @param point position relative to component
+     * @param handler clipboard handler
+     * @param actionsState popup actions state
+     * @param mouseEvent mouse popup trigger or null for keyboard trigger
+     */
+    protected void showPopupMenu(Component component, Point point, TextClipboardOperationController handler, PopupActionsState actionsState, @Nullable MouseEvent mouseEvent) {
+        boolean resolveLater = !actionsState.isResolved() || (deferredItemsEnabled && !itemsContributors.isEmpty());
+        if (!resolveLater && itemsContributors.isEmpty()) {
+            showPopupMenu(component, point, handler);
+            return;
+        }
+
+        Point locationOnScreen = mouseEvent == null ? null : mouseEvent.getLocationOnScreen();
+        int shape = getPopupMenuShape(handler);
+        JPopupMenu popupMenu = getPopupMenu(handler);
+        DeferredPopupItems deferredItems = new DeferredPopupItems(popupMenu);
+        if (!resolveLater) {
+            insertDeferredItems(deferredItems, shape, null, getContributedActions(component, handler, actionsState, locationOnScreen));
         }
+        timing.endPhase(PopupTimingPhase.MENU_BUILD);
+
+        showPopup(popupMenu, component, point.x, point.y);
+        timing.endPhase(PopupTimingPhase.SHOW);
+
+        if (resolveLater) {
+            // View dependent part of resolution is performed on event dispatch thread
+            Supplier<PopupActionsState> targetResolution = actionsState.isResolved()
+                    ? () -> actionsState
+                    : ((PopupTargetResolver) handler).prepareTargetResolution(actionsState, locationOnScreen);
+            deferredItems.submit(getDeferredItemsExecutor(), () -> {
+                PopupActionsState[] resolvedState = new PopupActionsState[1];
+                List<Action> actions = new ArrayList<>();
+                Runnable resolution = () -> {
+                    resolvedState[0] = targetResolution.get();
+                    if (deferredItemsEnabled) {
+                        actions.addAll(getContributedActions(component, handler, resolvedState[0], locationOnScreen));
+                    }
+                };
+                if (component instanceof JTextComponent) {
+                    ((JTextComponent) component).getDocument().render(resolution);
+                } else {
+                    resolution.run();
+                }
 
-        if (handler instanceof ImageActionsHandler) {
-            if (copyImageAction.isEnabled()) {
-                JMenuItem copyImageMenuItem = UiUtils.createMenuItem();
-                copyImageMenuItem.setAction(copyImageAction);
-                copyImageMenuItem.setName("basicCopyImageMenuItem");
-                popupMenu.add(copyImageMenuItem);
-                hasExtra = true;
+                return () -> {
+                    if (!actionsState.isResolved()) {
+                        updateActions(handler, mouseEvent, resolvedState[0]);
+                    }
+                    insertDeferredItems(deferredItems, shape, actionsState.isResolved() ? null : resolvedState[0], actions);
+                };
+            });
+        }
+    }
+
+    /**
+     * Updates paste action of possibly visible popup menu when clipboard
+     * state changes.
+     */
+    private void updatePasteAction() {
+        DefaultPopupClipboardAction pasteAction = defaultPasteAction;
+        if (pasteAction == null || pasteAction.actionsState == null) {
+            return;
+        }
+
+        pasteAction.setEnabled(pasteAction.actionsState.isEditable() && pasteAction.clipboardHandler.isValidForPaste());
+    }
+
+    private List<Action> getContributedActions(Component component, TextClipboardOperationController handler, PopupActionsState actionsState, @Nullable Point locationOnScreen) {
+        List<Action> actions = new ArrayList<>();
+        for (PopupItemsContributor contributor : itemsContributors) {
+            actions.addAll(contributor.getPopupActions(component, handler, actionsState, locationOnScreen));
+        }
+        return actions;
+    }
+
+    /**
+     * Inserts items resolved later than popup menu template was built.
+     *
+     * @param deferredItems deferred items of popup menu
+     * @param shape shape of popup menu template
+     * @param resolvedState resolved state of link and image actions or null
+     * @param actions contributed actions
+     */
+    protected void insertDeferredItems(DeferredPopupItems deferredItems, int shape, @Nullable PopupActionsState resolvedState, List<Action> actions) {
+        int index = (shape & PopupMenuTemplateCache.COPY_TEXT) != 0 ? 1 : 0;
+        int startIndex = index;
+        if (resolvedState != null) {
+            if (resolvedState.isImageSelected()) {
+                index = insertDeferredItem(deferredItems, copyImageAction, "basicCopyImageMenuItem", index);
+            }
+            if (resolvedState.isLinkSelected()) {
+                index = insertDeferredItem(deferredItems, openLinkAction, "basicOpenLinkMenuItem", index);
+                index = insertDeferredItem(deferredItems, copyLinkAction, "basicCopyLinkMenuItem", index);
             }
         }
+        for (Action action : actions) {
+            index = insertDeferredItem(deferredItems, action, null, index);
+        }
+
+        if (index > startIndex && (shape & ~PopupMenuTemplateCache.EDITABLE) == 0) {
+            deferredItems.insert(new JPopupMenu.Separator(), index);
+        }
+    }
+
+    private static int insertDeferredItem(DeferredPopupItems deferredItems, Action action, @Nullable String name, int index) {
+        JMenuItem menuItem = UiUtils.createMenuItem();
+        menuItem.setAction(action);
+        if (name != null) {
+            menuItem.setName(name);
+        }
+        deferredItems.insert(menuItem, index);
+        return index + 1;
+    }
+
+    private synchronized ExecutorService getDeferredItemsExecutor() {
+        if (deferredItemsExecutor == null) {
+            deferredItemsExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Popup items resolver");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return deferredItemsExecutor;
+    }
+
+    protected void showPopupMenu(Component component, Point point, TextClipboardOperationController handler) {
+        JPopupMenu popupMenu = getPopupMenu(handler);
+        timing.endPhase(PopupTimingPhase.MENU_BUILD);
+
+        showPopup(popupMenu, component, point.x, point.y);
+        timing.endPhase(PopupTimingPhase.SHOW);
+    }
+
+    /**
+     * Returns popup menu for clipboard handler, cached popup menu is used if
+     * available.
+     *
+     * @param handler clipboard handler
+     * @return popup menu
+     */
+    protected JPopupMenu getPopupMenu(TextClipboardOperationController handler) {
+        int shape = getPopupMenuShape(handler);
+        JPopupMenu popupMenu = templateCache.get(shape);
+        if (popupMenu == null) {
+            popupMenu = createPopupMenu(shape);
+            templateCache.put(shape, popupMenu);
+        }
+        return popupMenu;
+    }
+
+    /**
+     * Schedules warm-up of popup handling for idle time.
+     */
+    public void schedulePrewarm() {
+        cancelPrewarm();
+        prewarmer = new PopupPrewarmer(this, PopupPrewarmer.getDefaultComponents(), PopupPrewarmer.DEFAULT_IDLE_MILLIS);
+        prewarmer.start();
+    }
+
+    /**
+     * Cancels scheduled warm-up of popup handling.
+     */
+    public void cancelPrewarm() {
+        PopupPrewarmer currentPrewarmer = prewarmer;
+        prewarmer = null;
+        if (currentPrewarmer != null) {
+            currentPrewarmer.cancel();
+        }
+    }
+
+    /**
+     * Builds and lays out popup menu for component without showing it.
+     *
+     * @param component sample component
+     */
+    protected void prewarm(Component component) {
+        PopupHandlerRegistry.Registration registration = handlerRegistry.getRegistration(component.getClass());
+        if (registration == null) {
+            return;
+        }
 
+        TextClipboardOperationController clipboardHandler = registration.createHandler(component);
+        updateActions(clipboardHandler, null);
+
+        getPopupMenu(clipboardHandler).getPreferredSize();
+    }
+
+    /**
+     * Returns shape of popup menu for clipboard handler according to current
+     * state of actions.
+     *
+     * @param handler clipboard handler
+     * @return bitmask of {@link PopupMenuTemplateCache} flags
+     */
+    protected int getPopupMenuShape(TextClipboardOperationController handler) {
+        int shape = handler.isEditable() ? PopupMenuTemplateCache.EDITABLE : 0;
+        if (handler instanceof TextActionsHandler && copyTextAction.isEnabled()) {
+            shape |= PopupMenuTemplateCache.COPY_TEXT;
+        }
+        if (handler instanceof ImageActionsHandler && copyImageAction.isEnabled()) {
+            shape |= PopupMenuTemplateCache.COPY_IMAGE;
+        }
         if (handler instanceof LinkActionsHandler) {
             if (openLinkAction.isEnabled()) {
-                JMenuItem openLinkMenuItem = UiUtils.createMenuItem();
-                openLinkMenuItem.setAction(openLinkAction);
-                openLinkMenuItem.setName("basicOpenLinkMenuItem");
-                popupMenu.add(openLinkMenuItem);
-                hasExtra = true;
+                shape |= PopupMenuTemplateCache.OPEN_LINK;
             }
-
             if (copyLinkAction.isEnabled()) {
-                JMenuItem copyLinkMenuItem = UiUtils.createMenuItem();
-                copyLinkMenuItem.setAction(copyLinkAction);
-                copyLinkMenuItem.setName("basicCopyLinkMenuItem");
-                popupMenu.add(copyLinkMenuItem);
-                hasExtra = true;
+                shape |= PopupMenuTemplateCache.COPY_LINK;
             }
         }
+        return shape;
+    }
 
-        if (hasExtra) {
+    /**
+     * Creates popup menu of given shape.
+     *
+     * @param shape bitmask of {@link PopupMenuTemplateCache} flags
+     * @return popup menu
+     */
+    protected JPopupMenu createPopupMenu(int shape) {
+        JPopupMenu popupMenu = UiUtils.createPopupMenu();
+        popupMenu.setName("defaultPopupMenu");
+
+        if ((shape & PopupMenuTemplateCache.COPY_TEXT) != 0) {
+            JMenuItem copyTextMenuItem = UiUtils.createMenuItem();
+            copyTextMenuItem.setAction(copyTextAction);
+            copyTextMenuItem.setName("basicCopyTextMenuItem");
+            popupMenu.add(copyTextMenuItem);
+        }
+
+        if ((shape & PopupMenuTemplateCache.COPY_IMAGE) != 0) {
+            JMenuItem copyImageMenuItem = UiUtils.createMenuItem();
+            copyImageMenuItem.setAction(copyImageAction);
+            copyImageMenuItem.setName("basicCopyImageMenuItem");
+            popupMenu.add(copyImageMenuItem);
+        }
+
+        if ((shape & PopupMenuTemplateCache.OPEN_LINK) != 0) {
+            JMenuItem openLinkMenuItem = UiUtils.createMenuItem();
+            openLinkMenuItem.setAction(openLinkAction);
+            openLinkMenuItem.setName("basicOpenLinkMenuItem");
+            popupMenu.add(openLinkMenuItem);
+        }
+
+        if ((shape & PopupMenuTemplateCache.COPY_LINK) != 0) {
+            JMenuItem copyLinkMenuItem = UiUtils.createMenuItem();
+            copyLinkMenuItem.setAction(copyLinkAction);
+            copyLinkMenuItem.setName("basicCopyLinkMenuItem");
+            popupMenu.add(copyLinkMenuItem);
+        }
+
+        if ((shape & ~PopupMenuTemplateCache.EDITABLE) != 0) {
             popupMenu.addSeparator();
         }
 
-        if (editable) {
+        if ((shape & PopupMenuTemplateCache.EDITABLE) != 0) {
             fillDefaultEditPopupMenu(popupMenu, -1);
         } else {
             fillDefaultPopupMenu(popupMenu, -1);
         }
 
-        popupMenu.show(component, (int) point.getX(), (int) point.getY());
+        return popupMenu;
+    }
+
+    /**
+     * Shows popup menu built for component.
+     *
+     * @param popupMenu popup menu
+     * @param component invoker component
+     * @param x x position relative to component
+     * @param y y position relative to component
+     */
+    protected void showPopup(JPopupMenu popupMenu, Component component, int x, int y) {
+        popupMenu.show(component, x, y);
         popupMenu.grabFocus();
     }
 
+    /**
+     * Returns component receiving keyboard popup triggers.
+     *
+     * @return focus owner or null
+     */
+    @Nullable
+    protected Component getFocusOwner() {
+        return KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+    }
+
     @Nullable
     protected Component getSource(MouseEvent e) {
-        return SwingUtilities.getDeepestComponentAt(e.getComponent(), e.getX(), e.getY());
+        return hitTestCache.getDeepestComponentAt(e.getComponent(), e.getX(), e.getY());
     }
 
     @NullMarked
@@ -659,9 +1214,37 @@ public class DefaultPopupMenu {
 
         @Override
         protected void dispatchEvent(AWTEvent event) {
+            if (traceWriter != null) {
+                recordTraceEvent(event);
+            }
+
+            if (timing.isEnabled()) {
+                long start = System.nanoTime();
+                super.dispatchEvent(event);
+                if (isPopupEvent(event)) {
+                    processTimedAWTEvent(event);
+                }
+                timing.recordDispatch(System.nanoTime() - start);
+                return;
+            }
+
             super.dispatchEvent(event);
 
-            processAWTEvent(event);
+            if (isPopupEvent(event)) {
+                processAWTEvent(event);
+            }
+        }
+    }
+
+    @NullMarked
+    public class PopupEventListener implements AWTEventListener {
+
+        @Override
+        public void eventDispatched(AWTEvent event) {
+            if (isPopupEvent(event) && isPopupTriggerEvent(event)) {
+                // Listener is notified before event is dispatched to component, process it afterwards
+                EventQueue.invokeLater(() -> processTimedAWTEvent(event));
+            }
         }
     }
 
@@ -673,14 +1256,16 @@ public class DefaultPopupMenu {
 
         protected TextClipboardOperationController clipboardHandler;
         protected MouseEvent mouseEvent;
+        protected PopupActionsState actionsState;
 
         public DefaultPopupClipboardAction(String name) {
             super(name);
         }
 
-        public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent) {
+        public void updateFor(TextClipboardOperationController clipboardHandler, @Nullable MouseEvent mouseEvent, PopupActionsState actionsState) {
             this.clipboardHandler = clipboardHandler;
             this.mouseEvent = mouseEvent;
+            this.actionsState = actionsState;
         }
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JPopupMenu;
+import javax.swing.SwingUtilities;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Items inserted into popup menu for the time it is visible.
+ * <p>
+ * Items can be resolved in background, resolution is cancelled and inserted
+ * items are removed when popup menu becomes invisible.
+ */
+@NullMarked
+public final class DeferredPopupItems implements PopupMenuListener {
+
+    private final JPopupMenu popupMenu;
+    private final List<Component> insertedItems = new ArrayList<>();
+    @Nullable
+    private Future<?> future = null;
+    private boolean active = true;
+
+    public DeferredPopupItems(JPopupMenu popupMenu) {
+        this.popupMenu = popupMenu;
+        popupMenu.addPopupMenuListener(this);
+    }
+
+    /**
+     * Submits background resolution of items.
+     * <p>
+     * Task returns operation inserting items, which is invoked in event
+     * dispatch thread unless popup menu was closed in the meantime.
+     *
+     * @param executor executor service
+     * @param task resolution task
+     */
+    public void submit(ExecutorService executor, Callable<Runnable> task) {
+        future = executor.submit(() -> {
+            Runnable insertion;
+            try {
+                insertion = task.call();
+            } catch (Exception ex) {
+                Logger.getLogger(DeferredPopupItems.class.getName()).log(Level.WARNING, "Resolution of popup items failed", ex);
+                return;
+            }
+
+            SwingUtilities.invokeLater(() -> {
+                if (active) {
+                    insertion.run();
+                    if (popupMenu.isVisible()) {
+                        popupMenu.pack();
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Inserts item to popup menu.
+     *
+     * @param item menu item or separator
+     * @param index position in popup menu
+     */
+    public void insert(Component item, int index) {
+        popupMenu.insert(item, index);
+        insertedItems.add(item);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Cancels resolution and removes inserted items.
+     */
+    public void cancel() {
+        if (!active) {
+            return;
+        }
+
+        active = false;
+        popupMenu.removePopupMenuListener(this);
+        Future<?> currentFuture = future;
+        if (currentFuture != null) {
+            currentFuture.cancel(true);
+            future = null;
+        }
+        for (Component item : insertedItems) {
+            popupMenu.remove(item);
+        }
+        insertedItems.clear();
+    }
+
+    @Override
+    public void popupMenuWillBecomeVisible(PopupMenuEvent event) {
+    }
+
+    @Override
+    public void popupMenuWillBecomeInvisible(PopupMenuEvent event) {
+        cancel();
+    }
+
+    @Override
+    public void popupMenuCanceled(PopupMenuEvent event) {
+        cancel();
+    }
+}
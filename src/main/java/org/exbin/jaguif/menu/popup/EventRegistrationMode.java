@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+/**
+ * Enumeration of ways how popup menu handling is attached to AWT.
+ */
+public enum EventRegistrationMode {
+    /**
+     * Custom event queue is pushed and every event is processed after it was
+     * dispatched.
+     */
+    EVENT_QUEUE,
+    /**
+     * AWT event listener is registered for mouse and key events only, popup
+     * triggers are processed after current event is dispatched.
+     */
+    AWT_EVENT_LISTENER;
+}
@@ -28,6 +28,15 @@ public interface ImageActionsHandler {
      */
     void performCopyImage();
 
+    /**
+     * Performs copy of image already resolved for popup menu to clipboard.
+     *
+     * @param imageSrc image source
+     */
+    default void performCopyImage(String imageSrc) {
+        performCopyImage();
+    }
+
     /**
      * Returns if true if image is selected.
      *
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Buckets are log-linear: each power of two range is split into 8 linear
+ * sub-buckets, which limits relative error of reported values to 12.5 %.
+ * Recording does not allocate and can be performed from any thread.
+ */
+@NullMarked
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    /**
+     * Values above 2^45 ns (about 9 hours) are recorded in the last bucket.
+     */
+    private static final int MAX_EXPONENT = 44;
+    public static final int BUCKETS_COUNT = (MAX_EXPONENT - 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Records single latency value.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(getBucketIndex(value));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(value);
+
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalNanos.get() / count;
+    }
+
+    /**
+     * Returns value below which given percentage of recorded values falls.
+     *
+     * @param percentile percentile in range 0 to 100
+     * @return upper bound of bucket with percentile in nanoseconds or zero if
+     * no value was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            count += counts.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            cumulativeCount += counts.get(i);
+            if (cumulativeCount >= targetCount) {
+                return Math.min(getBucketUpperBound(i), maxNanos.get());
+            }
+        }
+
+        return maxNanos.get();
+    }
+
+    /**
+     * Clears all recorded values.
+     * <p>
+     * Values recorded concurrently with reset might be partially lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS_COUNT - 1;
+        }
+
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getBucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKET_COUNT + (index & SUB_BUCKET_MASK)) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long getBucketUpperBound(int index) {
+        return index == BUCKETS_COUNT - 1 ? Long.MAX_VALUE : getBucketLowerBound(index + 1) - 1;
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.exbin.jaguif.menu.popup;
 
+import java.awt.datatransfer.StringSelection;
+import org.exbin.jaguif.utils.ClipboardUtils;
+import org.exbin.jaguif.utils.DesktopUtils;
 import org.jspecify.annotations.NullMarked;
 
 /**
@@ -33,6 +36,25 @@ public interface LinkActionsHandler {
      */
     void performOpenLink();
 
+    /**
+     * Performs copy of link already resolved for popup menu to clipboard.
+     *
+     * @param linkUrl link URL
+     */
+    default void performCopyLink(String linkUrl) {
+        StringSelection stringSelection = new StringSelection(linkUrl);
+        ClipboardUtils.setContents(stringSelection, stringSelection);
+    }
+
+    /**
+     * Opens link already resolved for popup menu using default browser.
+     *
+     * @param linkUrl link URL
+     */
+    default void performOpenLink(String linkUrl) {
+        DesktopUtils.openDesktopURL(linkUrl);
+    }
+
     /**
      * Returns if true if link is selected.
      *
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Point;
+import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Immutable snapshot of popup actions state for single popup trigger.
+ * <p>
+ * All capability queries of clipboard handler are performed once when
+ * snapshot is created and popup actions only read resulting values.
+ */
+@NullMarked
+public final class PopupActionsState {
+
+    private final boolean editable;
+    private final boolean pasteable;
+    private final boolean selection;
+    private final boolean deletable;
+    private final boolean selectableAll;
+    private final boolean textSelected;
+    private final boolean linkSelected;
+    private final boolean imageSelected;
+    @Nullable
+    private final String linkUrl;
+    @Nullable
+    private final String imageSrc;
+    private final boolean resolved;
+
+    public PopupActionsState(boolean editable, boolean selection, boolean deletable, boolean selectableAll, boolean textSelected, @Nullable String linkUrl, @Nullable String imageSrc) {
+        this(editable, editable, selection, deletable, selectableAll, textSelected, linkUrl, imageSrc);
+    }
+
+    public PopupActionsState(boolean editable, boolean pasteable, boolean selection, boolean deletable, boolean selectableAll, boolean textSelected, @Nullable String linkUrl, @Nullable String imageSrc) {
+        this(editable, pasteable, selection, deletable, selectableAll, textSelected, linkUrl != null, linkUrl, imageSrc != null, imageSrc, true);
+    }
+
+    private PopupActionsState(boolean editable, boolean pasteable, boolean selection, boolean deletable, boolean selectableAll, boolean textSelected, boolean linkSelected, @Nullable String linkUrl, boolean imageSelected, @Nullable String imageSrc, boolean resolved) {
+        this.editable = editable;
+        this.pasteable = pasteable;
+        this.selection = selection;
+        this.deletable = deletable;
+        this.selectableAll = selectableAll;
+        this.textSelected = textSelected;
+        this.linkSelected = linkSelected;
+        this.linkUrl = linkUrl;
+        this.imageSelected = imageSelected;
+        this.imageSrc = imageSrc;
+        this.resolved = resolved;
+    }
+
+    /**
+     * Returns state of popup actions for clipboard handler.
+     * <p>
+     * Handler implementing {@link PopupActionsStateProvider} computes snapshot
+     * itself, otherwise each capability is queried exactly once.
+     *
+     * @param handler clipboard handler
+     * @param locationOnScreen location of mouse popup trigger on screen or null
+     * for keyboard trigger
+     * @return popup actions state
+     */
+    public static PopupActionsState of(TextClipboardOperationController handler, @Nullable Point locationOnScreen) {
+        if (handler instanceof PopupActionsStateProvider) {
+            return ((PopupActionsStateProvider) handler).getActionsState(locationOnScreen);
+        }
+
+        boolean textSelected = isTextSelected(handler, locationOnScreen);
+
+        boolean linkSelected;
+        if (locationOnScreen != null && handler instanceof PositionLinkActionsHandler) {
+            linkSelected = ((PositionLinkActionsHandler) handler).isLinkSelected(new Point(locationOnScreen));
+        } else {
+            linkSelected = handler instanceof LinkActionsHandler && ((LinkActionsHandler) handler).isLinkSelected();
+        }
+
+        boolean imageSelected;
+        if (locationOnScreen != null && handler instanceof PositionImageActionsHandler) {
+            imageSelected = ((PositionImageActionsHandler) handler).isImageSelected(new Point(locationOnScreen));
+        } else {
+            imageSelected = handler instanceof ImageActionsHandler && ((ImageActionsHandler) handler).isImageSelected();
+        }
+
+        boolean editable = handler.isEditable();
+        return new PopupActionsState(editable, editable && handler.isValidForPaste(), handler.hasSelection(), handler.canDelete(), handler.canSelectAll(), textSelected, linkSelected, null, imageSelected, null, true);
+    }
+
+    /**
+     * Returns state of popup actions for clipboard handler without resolving
+     * of link and image under popup trigger.
+     * <p>
+     * For handler not implementing {@link PopupTargetResolver} returned state
+     * is resolved.
+     *
+     * @param handler clipboard handler
+     * @param locationOnScreen location of mouse popup trigger on screen or null
+     * for keyboard trigger
+     * @return popup actions state
+     */
+    public static PopupActionsState ofClipboard(TextClipboardOperationController handler, @Nullable Point locationOnScreen) {
+        if (!hasDeferrableActions(handler)) {
+            return of(handler, locationOnScreen);
+        }
+
+        boolean textSelected = isTextSelected(handler, locationOnScreen);
+
+        boolean editable = handler.isEditable();
+        return new PopupActionsState(editable, editable && handler.isValidForPaste(), handler.hasSelection(), handler.canDelete(), handler.canSelectAll(), textSelected, false, null, false, null, false);
+    }
+
+    /**
+     * Returns whether clipboard handler resolves link and image actions in
+     * background thread.
+     *
+     * @param handler clipboard handler
+     * @return true if handler implements {@link PopupTargetResolver}
+     */
+    public static boolean hasDeferrableActions(TextClipboardOperationController handler) {
+        return handler instanceof PopupTargetResolver;
+    }
+
+    /**
+     * Returns resolved state with given link and image and the same clipboard
+     * actions state.
+     *
+     * @param linkSelected true if link is selected
+     * @param linkUrl resolved link URL or null
+     * @param imageSelected true if image is selected
+     * @param imageSrc resolved image source or null
+     * @return popup actions state
+     */
+    public PopupActionsState withLinkAndImage(boolean linkSelected, @Nullable String linkUrl, boolean imageSelected, @Nullable String imageSrc) {
+        return new PopupActionsState(editable, pasteable, selection, deletable, selectableAll, textSelected, linkSelected, linkUrl, imageSelected, imageSrc, true);
+    }
+
+    private static boolean isTextSelected(TextClipboardOperationController handler, @Nullable Point locationOnScreen) {
+        if (locationOnScreen != null && handler instanceof PositionTextActionsHandler) {
+            return ((PositionTextActionsHandler) handler).isTextSelected(new Point(locationOnScreen));
+        }
+
+        return handler instanceof TextActionsHandler && ((TextActionsHandler) handler).isTextSelected();
+    }
+
+    public boolean isEditable() {
+        return editable;
+    }
+
+    /**
+     * Returns whether clipboard content can be pasted.
+     *
+     * @return true if handler is editable and valid for paste
+     */
+    public boolean canPaste() {
+        return pasteable;
+    }
+
+    public boolean hasSelection() {
+        return selection;
+    }
+
+    public boolean canDelete() {
+        return deletable;
+    }
+
+    public boolean canSelectAll() {
+        return selectableAll;
+    }
+
+    public boolean isTextSelected() {
+        return textSelected;
+    }
+
+    public boolean isLinkSelected() {
+        return linkSelected;
+    }
+
+    public boolean isImageSelected() {
+        return imageSelected;
+    }
+
+    /**
+     * Returns whether link and image actions state was resolved.
+     *
+     * @return false if link and image resolution was deferred
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    /**
+     * Returns resolved link URL if provided by handler.
+     *
+     * @return link URL or null
+     */
+    @Nullable
+    public String getLinkUrl() {
+        return linkUrl;
+    }
+
+    /**
+     * Returns resolved image source if provided by handler.
+     *
+     * @return image source or null
+     */
+    @Nullable
+    public String getImageSrc() {
+        return imageSrc;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Point;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Interface for clipboard handler able to compute state of all popup actions
+ * in single pass.
+ */
+@NullMarked
+public interface PopupActionsStateProvider {
+
+    /**
+     * Returns snapshot of popup actions state.
+     *
+     * @param locationOnScreen location of mouse popup trigger on screen or null
+     * for keyboard trigger
+     * @return popup actions state
+     */
+    PopupActionsState getActionsState(@Nullable Point locationOnScreen);
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Component;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import javax.swing.JComponent;
+import org.exbin.jaguif.menu.popup.api.ComponentPopupEventDispatcher;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Immutable chain of popup event dispatchers ordered by priority.
+ * <p>
+ * Adding or removing dispatcher creates new chain, so chain can be read from
+ * event dispatch thread without locking.
+ */
+@NullMarked
+public final class PopupEventDispatcherChain {
+
+    /**
+     * Chain without any dispatchers.
+     */
+    public static final PopupEventDispatcherChain EMPTY = new PopupEventDispatcherChain(new Entry[0]);
+
+    private final Entry[] entries;
+
+    private PopupEventDispatcherChain(Entry[] entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Returns new chain with given dispatcher added after dispatchers of the
+     * same or higher priority.
+     *
+     * @param dispatcher dispatcher
+     * @return new chain
+     */
+    public PopupEventDispatcherChain with(ComponentPopupEventDispatcher dispatcher) {
+        Entry entry = new Entry(dispatcher);
+        int position = 0;
+        while (position < entries.length && entries[position].priority >= entry.priority) {
+            position++;
+        }
+
+        Entry[] newEntries = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, newEntries, 0, position);
+        newEntries[position] = entry;
+        System.arraycopy(entries, position, newEntries, position + 1, entries.length - position);
+        return new PopupEventDispatcherChain(newEntries);
+    }
+
+    /**
+     * Returns new chain without given dispatcher.
+     *
+     * @param dispatcher dispatcher
+     * @return new chain or this chain if dispatcher is not present
+     */
+    public PopupEventDispatcherChain without(ComponentPopupEventDispatcher dispatcher) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].dispatcher == dispatcher) {
+                Entry[] newEntries = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, newEntries, 0, i);
+                System.arraycopy(entries, i + 1, newEntries, i, entries.length - i - 1);
+                return new PopupEventDispatcherChain(newEntries);
+            }
+        }
+
+        return this;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    /**
+     * Passes mouse event to dispatchers relevant for target component.
+     *
+     * @param mouseEvent mouse event
+     * @param target target component
+     * @return true if event was processed
+     */
+    public boolean dispatchMouseEvent(MouseEvent mouseEvent, @Nullable Component target) {
+        for (Entry entry : entries) {
+            if (entry.accepts(target) && entry.dispatcher.dispatchMouseEvent(mouseEvent)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Passes key event to dispatchers relevant for target component.
+     *
+     * @param keyEvent key event
+     * @param target target component
+     * @return true if event was processed
+     */
+    public boolean dispatchKeyEvent(KeyEvent keyEvent, @Nullable Component target) {
+        for (Entry entry : entries) {
+            if (entry.accepts(target) && entry.dispatcher.dispatchKeyEvent(keyEvent)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @NullMarked
+    private static final class Entry {
+
+        private final ComponentPopupEventDispatcher dispatcher;
+        private final int priority;
+        private final Class<?>[] componentClasses;
+        private final Object[] clientPropertyKeys;
+        private final boolean universal;
+
+        private Entry(ComponentPopupEventDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+            priority = dispatcher.getPriority();
+            componentClasses = dispatcher.getComponentClasses().toArray(new Class<?>[0]);
+            clientPropertyKeys = dispatcher.getClientPropertyKeys().toArray();
+            universal = componentClasses.length == 0 && clientPropertyKeys.length == 0;
+        }
+
+        private boolean accepts(@Nullable Component target) {
+            if (universal) {
+                return true;
+            }
+
+            for (Component component = target; component != null; component = component.getParent()) {
+                for (Class<?> componentClass : componentClasses) {
+                    if (componentClass.isInstance(component)) {
+                        return true;
+                    }
+                }
+
+                if (clientPropertyKeys.length > 0 && component instanceof JComponent) {
+                    for (Object clientPropertyKey : clientPropertyKeys) {
+                        if (((JComponent) component).getClientProperty(clientPropertyKey) != null) {
+                            return true;
+                        }
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Precomputed dispatch table of AWT event identifiers relevant for popup
+ * handling.
+ * <p>
+ * Lookup is a single bit test, so it can be performed for every event passing
+ * through event queue before any other work.
+ */
+@NullMarked
+public final class PopupEventFilter {
+
+    /**
+     * Events which can trigger popup menu.
+     */
+    public static final PopupEventFilter POPUP_TRIGGER_EVENTS = new PopupEventFilter(new long[0]).with(MouseEvent.MOUSE_PRESSED, MouseEvent.MOUSE_RELEASED, KeyEvent.KEY_PRESSED);
+
+    private final long[] idBits;
+
+    private PopupEventFilter(long[] idBits) {
+        this.idBits = idBits;
+    }
+
+    /**
+     * Returns whether event of given identifier can be relevant for popup
+     * handling.
+     *
+     * @param eventId event identifier
+     * @return true if event is accepted
+     */
+    public boolean accepts(int eventId) {
+        int word = eventId >>> 6;
+        return word < idBits.length && (idBits[word] & (1L << eventId)) != 0;
+    }
+
+    /**
+     * Returns new filter accepting also given event identifiers.
+     *
+     * @param eventIds event identifiers
+     * @return new filter instance
+     */
+    public PopupEventFilter with(int... eventIds) {
+        int maxId = (idBits.length << 6) - 1;
+        for (int eventId : eventIds) {
+            if (eventId < 0) {
+                throw new IllegalArgumentException("Invalid event identifier: " + eventId);
+            }
+            maxId = Math.max(maxId, eventId);
+        }
+
+        long[] bits = new long[(maxId >>> 6) + 1];
+        System.arraycopy(idBits, 0, bits, 0, idBits.length);
+        for (int eventId : eventIds) {
+            bits[eventId >>> 6] |= 1L << eventId;
+        }
+
+        return new PopupEventFilter(bits);
+    }
+}
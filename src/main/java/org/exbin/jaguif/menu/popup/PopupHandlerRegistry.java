@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Component;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.JEditorPane;
+import javax.swing.JList;
+import javax.swing.JTable;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.JTextComponent;
+import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.exbin.jaguif.menu.popup.api.PopupAnchorLocator;
+import org.exbin.jaguif.menu.popup.api.PopupHandlerFactory;
+import org.exbin.jaguif.menu.popup.handler.EditorPanePopupHandler;
+import org.exbin.jaguif.menu.popup.handler.ListPopupHandler;
+import org.exbin.jaguif.menu.popup.handler.TablePopupHandler;
+import org.exbin.jaguif.menu.popup.handler.TextComponentPopupHandler;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Registry of popup handler factories per component class.
+ * <p>
+ * Registration for the most specific registered superclass of component is
+ * used, interfaces are checked after all superclasses. Result is memoized per
+ * concrete component class including classes without any registration, so
+ * repeated lookups cost single cached access.
+ */
+@NullMarked
+public final class PopupHandlerRegistry {
+
+    private static final Registration NO_REGISTRATION = new Registration(Component.class, component -> {
+        throw new IllegalStateException();
+    }, component -> null);
+
+    private static PopupHandlerRegistry instance = null;
+
+    private final Map<Class<?>, Registration> registrations = new LinkedHashMap<>();
+    private volatile RegistrationCache cache = new RegistrationCache(registrations);
+
+    public PopupHandlerRegistry() {
+    }
+
+    /**
+     * Returns shared registry with handlers for standard Swing components.
+     *
+     * @return popup handler registry
+     */
+    public static synchronized PopupHandlerRegistry getInstance() {
+        if (instance == null) {
+            instance = createDefault();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Creates registry with handlers for standard Swing components.
+     *
+     * @return popup handler registry
+     */
+    public static PopupHandlerRegistry createDefault() {
+        PopupHandlerRegistry registry = new PopupHandlerRegistry();
+        registry.register(JEditorPane.class, EditorPanePopupHandler::new, PopupHandlerRegistry::getCaretAnchor);
+        registry.register(JTextComponent.class, TextComponentPopupHandler::new, PopupHandlerRegistry::getCaretAnchor);
+        registry.register(JList.class, ListPopupHandler::new, PopupHandlerRegistry::getSelectedItemAnchor);
+        registry.register(JTable.class, TablePopupHandler::new, PopupHandlerRegistry::getSelectedCellAnchor);
+        return registry;
+    }
+
+    /**
+     * Registers popup handler factory for given component class and its
+     * subclasses.
+     * <p>
+     * Existing registration for the same class is replaced.
+     *
+     * @param <T> component type
+     * @param componentClass component class
+     * @param handlerFactory handler factory
+     * @param anchorLocator locator of popup position for keyboard trigger
+     */
+    public <T extends Component> void register(Class<T> componentClass, PopupHandlerFactory<? super T> handlerFactory, PopupAnchorLocator<? super T> anchorLocator) {
+        synchronized (registrations) {
+            registrations.put(componentClass, new Registration(componentClass, handlerFactory, anchorLocator));
+            cache = new RegistrationCache(registrations);
+        }
+    }
+
+    /**
+     * Unregisters popup handler factory for given component class.
+     *
+     * @param componentClass component class
+     */
+    public void unregister(Class<? extends Component> componentClass) {
+        synchronized (registrations) {
+            if (registrations.remove(componentClass) != null) {
+                cache = new RegistrationCache(registrations);
+            }
+        }
+    }
+
+    /**
+     * Returns registration applicable for given component class.
+     *
+     * @param componentClass component class
+     * @return registration or null if component has no popup handler
+     */
+    @Nullable
+    public Registration getRegistration(Class<? extends Component> componentClass) {
+        Registration registration = cache.get(componentClass);
+        return registration == NO_REGISTRATION ? null : registration;
+    }
+
+    @Nullable
+    private static Point getCaretAnchor(JTextComponent component) {
+        try {
+            @SuppressWarnings("deprecation")
+            Rectangle relativeRect = component.modelToView(component.getCaretPosition());
+            return relativeRect == null ? null : new Point(relativeRect.x + relativeRect.width, relativeRect.y + relativeRect.height);
+        } catch (BadLocationException ex) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Point getSelectedItemAnchor(JList<?> component) {
+        int selectedIndex = component.getSelectedIndex();
+        if (selectedIndex >= 0) {
+            Rectangle cellBounds = component.getCellBounds(selectedIndex, selectedIndex);
+            return new Point(component.getWidth() / 2, cellBounds.y);
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static Point getSelectedCellAnchor(JTable component) {
+        int selectedRow = component.getSelectedRow();
+        if (selectedRow >= 0) {
+            int selectedColumn = component.getSelectedColumn();
+            if (selectedColumn < -1) {
+                selectedColumn = 0;
+            }
+            Rectangle cellBounds = component.getCellRect(selectedRow, selectedColumn, false);
+            return new Point(cellBounds.x, cellBounds.y);
+        }
+
+        return null;
+    }
+
+    /**
+     * Immutable snapshot of registrations with memoized lookups, replaced on
+     * every change of registrations.
+     */
+    @NullMarked
+    private static final class RegistrationCache extends ClassValue<Registration> {
+
+        private final Map<Class<?>, Registration> registrations;
+
+        private RegistrationCache(Map<Class<?>, Registration> registrations) {
+            this.registrations = new LinkedHashMap<>(registrations);
+        }
+
+        @Override
+        protected Registration computeValue(Class<?> type) {
+            for (Class<?> superClass = type; superClass != null; superClass = superClass.getSuperclass()) {
+                Registration registration = registrations.get(superClass);
+                if (registration != null) {
+                    return registration;
+                }
+            }
+
+            for (Class<?> superClass = type; superClass != null; superClass = superClass.getSuperclass()) {
+                for (Class<?> interfaceClass : superClass.getInterfaces()) {
+                    Registration registration = registrations.get(interfaceClass);
+                    if (registration != null) {
+                        return registration;
+                    }
+                }
+            }
+
+            return NO_REGISTRATION;
+        }
+    }
+
+    /**
+     * Popup handler factory and anchor locator registered for component class.
+     */
+    @NullMarked
+    public static final class Registration {
+
+        private final Class<?> componentClass;
+        private final PopupHandlerFactory<Component> handlerFactory;
+        private final PopupAnchorLocator<Component> anchorLocator;
+
+        @SuppressWarnings("unchecked")
+        private Registration(Class<?> componentClass, PopupHandlerFactory<?> handlerFactory, PopupAnchorLocator<?> anchorLocator) {
+            this.componentClass = componentClass;
+            // Components are always instances of registered class
+            this.handlerFactory = (PopupHandlerFactory<Component>) handlerFactory;
+            this.anchorLocator = (PopupAnchorLocator<Component>) anchorLocator;
+        }
+
+        public Class<?> getComponentClass() {
+            return componentClass;
+        }
+
+        /**
+         * Creates clipboard handler for given component.
+         *
+         * @param component component
+         * @return clipboard handler
+         */
+        public TextClipboardOperationController createHandler(Component component) {
+            return handlerFactory.createHandler(component);
+        }
+
+        /**
+         * Returns position for popup menu invoked using keyboard.
+         *
+         * @param component component
+         * @return position relative to component or null for default position
+         */
+        @Nullable
+        public Point locateAnchor(Component component) {
+            return anchorLocator.locateAnchor(component);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Popup handling latencies exposed as management bean.
+ */
+@NullMarked
+public class PopupLatency implements PopupLatencyMXBean {
+
+    public static final String OBJECT_NAME = "org.exbin.jaguif:type=PopupLatency";
+    public static final String TOTAL_PHASE = "TOTAL";
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final PopupTiming timing;
+
+    public PopupLatency(PopupTiming timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * Registers management bean to platform MBean server, replacing previous
+     * registration.
+     */
+    public void registerMBean() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            try {
+                mBeanServer.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException ex) {
+                mBeanServer.unregisterMBean(objectName);
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException ex) {
+            Logger.getLogger(PopupLatency.class.getName()).log(Level.WARNING, "Unable to register popup latency bean", ex);
+        }
+    }
+
+    /**
+     * Unregisters management bean from platform MBean server.
+     */
+    public void unregisterMBean() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException ex) {
+            Logger.getLogger(PopupLatency.class.getName()).log(Level.WARNING, "Unable to unregister popup latency bean", ex);
+        }
+    }
+
+    @Override
+    public long getPopupCount() {
+        return timing.getTotalHistogram().getCount();
+    }
+
+    @Override
+    public boolean isRecording() {
+        return timing.isEnabled();
+    }
+
+    @Override
+    public List<PopupLatencySummary> getSummaries() {
+        List<PopupLatencySummary> summaries = new ArrayList<>();
+        summaries.add(PopupLatencySummary.of(TOTAL_PHASE, timing.getTotalHistogram()));
+        for (PopupTimingPhase phase : PopupTimingPhase.values()) {
+            summaries.add(PopupLatencySummary.of(phase.name(), timing.getPhaseHistogram(phase)));
+        }
+        return summaries;
+    }
+
+    @Override
+    public double getLatencyMillis(String phase, double percentile) {
+        LatencyHistogram histogram = TOTAL_PHASE.equals(phase) ? timing.getTotalHistogram() : timing.getPhaseHistogram(PopupTimingPhase.valueOf(phase));
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public String formatReport() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%-16s %8s %10s %10s %10s %10s %10s", "Phase [ms]", "count", "mean", "p50", "p90", "p99", "max"));
+        for (PopupLatencySummary summary : getSummaries()) {
+            builder.append('\n').append(String.format(Locale.ROOT, "%-16s %8d %10.3f %10.3f %10.3f %10.3f %10.3f", summary.getPhase(), summary.getCount(),
+                    summary.getMeanMillis(), summary.getP50Millis(), summary.getP90Millis(), summary.getP99Millis(), summary.getMaxMillis()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Logs report of latency percentiles.
+     */
+    public void logReport() {
+        Logger.getLogger(PopupLatency.class.getName()).log(Level.INFO, "Popup handling latencies{0}{1}", new Object[]{System.lineSeparator(), formatReport()});
+    }
+
+    @Override
+    public void reset() {
+        timing.getTotalHistogram().reset();
+        for (PopupTimingPhase phase : PopupTimingPhase.values()) {
+            timing.getPhaseHistogram(phase).reset();
+        }
+    }
+}
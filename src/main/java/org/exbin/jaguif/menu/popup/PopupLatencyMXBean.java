@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.util.List;
+
+/**
+ * Management interface for popup handling latencies.
+ */
+public interface PopupLatencyMXBean {
+
+    /**
+     * Returns number of popup menus shown while latencies were recorded.
+     *
+     * @return number of popup menus
+     */
+    long getPopupCount();
+
+    /**
+     * Returns whether latencies are being recorded.
+     *
+     * @return true if recording
+     */
+    boolean isRecording();
+
+    /**
+     * Returns latency summaries for total popup handling and each step.
+     *
+     * @return list of summaries
+     */
+    List<PopupLatencySummary> getSummaries();
+
+    /**
+     * Returns latency at given percentile.
+     *
+     * @param phase name of popup handling step or TOTAL
+     * @param percentile percentile in range 0 to 100
+     * @return latency in milliseconds
+     */
+    double getLatencyMillis(String phase, double percentile);
+
+    /**
+     * Returns report of latency percentiles.
+     *
+     * @return text report
+     */
+    String formatReport();
+
+    /**
+     * Clears recorded latencies.
+     */
+    void reset();
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Summary of latencies of single popup handling step.
+ */
+@NullMarked
+public final class PopupLatencySummary {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String phase;
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    @ConstructorProperties({"phase", "count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis"})
+    public PopupLatencySummary(String phase, long count, double meanMillis, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+        this.phase = phase;
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Creates summary of given histogram.
+     *
+     * @param phase name of popup handling step
+     * @param histogram latency histogram
+     * @return latency summary
+     */
+    public static PopupLatencySummary of(String phase, LatencyHistogram histogram) {
+        return new PopupLatencySummary(phase, histogram.getCount(),
+                histogram.getMeanNanos() / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getMaxNanos() / NANOS_PER_MILLI);
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import javax.swing.JPopupMenu;
+import javax.swing.UIManager;
+import org.exbin.jaguif.utils.UiUtils;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Cache of popup menus per menu shape.
+ * <p>
+ * Shape is bitmask of editable flag and present extra items. Menu items are
+ * bound to shared popup actions, so cached menu reflects current actions
+ * state. Cache is cleared when look and feel or menu builder changes.
+ * Expected to be used from event dispatch thread only.
+ */
+@NullMarked
+public final class PopupMenuTemplateCache {
+
+    public static final int EDITABLE = 1;
+    public static final int COPY_TEXT = 1 << 1;
+    public static final int COPY_IMAGE = 1 << 2;
+    public static final int OPEN_LINK = 1 << 3;
+    public static final int COPY_LINK = 1 << 4;
+    public static final int SHAPES_COUNT = 1 << 5;
+
+    private static final String LOOK_AND_FEEL_PROPERTY = "lookAndFeel";
+
+    private final @Nullable JPopupMenu[] templates = new JPopupMenu[SHAPES_COUNT];
+    private UiUtils.@Nullable MenuBuilder templatesMenuBuilder = null;
+    private boolean enabled = false;
+    private final PropertyChangeListener lookAndFeelListener = (PropertyChangeEvent event) -> {
+        if (LOOK_AND_FEEL_PROPERTY.equals(event.getPropertyName())) {
+            clear();
+        }
+    };
+
+    public PopupMenuTemplateCache() {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+
+        this.enabled = enabled;
+        if (enabled) {
+            UIManager.addPropertyChangeListener(lookAndFeelListener);
+        } else {
+            UIManager.removePropertyChangeListener(lookAndFeelListener);
+            clear();
+        }
+    }
+
+    /**
+     * Returns cached popup menu for given shape.
+     *
+     * @param shape menu shape
+     * @return popup menu or null if not cached or currently in use
+     */
+    @Nullable
+    public JPopupMenu get(int shape) {
+        if (!enabled) {
+            return null;
+        }
+
+        if (templatesMenuBuilder != UiUtils.getMenuBuilder()) {
+            clear();
+            return null;
+        }
+
+        JPopupMenu popupMenu = templates[shape];
+        return popupMenu == null || popupMenu.isVisible() ? null : popupMenu;
+    }
+
+    /**
+     * Stores popup menu for given shape.
+     *
+     * @param shape menu shape
+     * @param popupMenu popup menu
+     */
+    public void put(int shape, JPopupMenu popupMenu) {
+        if (enabled) {
+            templates[shape] = popupMenu;
+            templatesMenuBuilder = UiUtils.getMenuBuilder();
+        }
+    }
+
+    /**
+     * Removes all cached popup menus.
+     */
+    public void clear() {
+        Arrays.fill(templates, null);
+    }
+}
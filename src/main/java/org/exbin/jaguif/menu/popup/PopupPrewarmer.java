@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JEditorPane;
+import javax.swing.JList;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Warm-up of popup handling performed when user interface is idle.
+ * <p>
+ * Popup menu is built and laid out, but not shown, for each of sample
+ * components, one component per idle period, so that class loading and look
+ * and feel initialization is not performed on the first popup trigger.
+ * Warm-up is cancelled when popup is triggered before it is finished.
+ * <p>
+ * User interface is considered idle when there was no input event for given
+ * time and event queue is empty.
+ */
+@NullMarked
+public final class PopupPrewarmer {
+
+    public static final int DEFAULT_IDLE_MILLIS = 2000;
+    private static final int CHECK_INTERVAL_MILLIS = 250;
+    private static final long INPUT_EVENT_MASK = AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK | AWTEvent.KEY_EVENT_MASK;
+
+    private static final Logger LOG = Logger.getLogger(PopupPrewarmer.class.getName());
+
+    private final DefaultPopupMenu popupMenu;
+    private final List<Supplier<? extends Component>> components;
+    private final int stepsCount;
+    private final int idleMillis;
+    private final Timer timer;
+    private final AWTEventListener inputListener = (AWTEvent event) -> {
+        lastInputMillis = System.currentTimeMillis();
+    };
+    private volatile long lastInputMillis;
+    private int step = 0;
+    private long startNanos;
+    private long workNanos = 0;
+
+    public PopupPrewarmer(DefaultPopupMenu popupMenu, List<Supplier<? extends Component>> components, int idleMillis) {
+        this.popupMenu = popupMenu;
+        this.components = new ArrayList<>(components);
+        stepsCount = components.size();
+        this.idleMillis = idleMillis;
+        timer = new Timer(CHECK_INTERVAL_MILLIS, this::checkIdle);
+        timer.setRepeats(true);
+    }
+
+    /**
+     * Returns suppliers of sample components for built-in popup handlers.
+     *
+     * @return list of component suppliers
+     */
+    public static List<Supplier<? extends Component>> getDefaultComponents() {
+        return Arrays.asList(
+                () -> new JTextField("Popup"),
+                () -> {
+                    JTextArea textArea = new JTextArea("Popup");
+                    textArea.setEditable(false);
+                    return textArea;
+                },
+                () -> new JEditorPane("text/plain", "Popup"),
+                () -> new JList<>(new String[]{"Popup"}),
+                () -> new JTable(new Object[][]{{"Popup"}}, new Object[]{"Popup"})
+        );
+    }
+
+    /**
+     * Starts waiting for idle periods.
+     */
+    public void start() {
+        if (stepsCount == 0) {
+            return;
+        }
+
+        startNanos = System.nanoTime();
+        lastInputMillis = System.currentTimeMillis();
+        Toolkit.getDefaultToolkit().addAWTEventListener(inputListener, INPUT_EVENT_MASK);
+        timer.start();
+    }
+
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    /**
+     * Stops warm-up if not finished yet.
+     */
+    public void cancel() {
+        if (timer.isRunning()) {
+            stop();
+            LOG.log(Level.INFO, "Popup warm-up cancelled after {0} of {1} steps, {2} ms spent", new Object[]{step, stepsCount, TimeUnit.NANOSECONDS.toMillis(workNanos)});
+        }
+    }
+
+    private void stop() {
+        timer.stop();
+        Toolkit.getDefaultToolkit().removeAWTEventListener(inputListener);
+        components.clear();
+    }
+
+    private void checkIdle(ActionEvent event) {
+        long idleTime = System.currentTimeMillis() - lastInputMillis;
+        if (idleTime < idleMillis || Toolkit.getDefaultToolkit().getSystemEventQueue().peekEvent() != null) {
+            return;
+        }
+
+        long stepStart = System.nanoTime();
+        popupMenu.prewarm(components.get(step).get());
+        workNanos += System.nanoTime() - stepStart;
+        step++;
+
+        if (step == stepsCount) {
+            stop();
+            LOG.log(Level.INFO, "Popup warm-up finished in {0} steps, {1} ms spent, {2} ms elapsed", new Object[]{step, TimeUnit.NANOSECONDS.toMillis(workNanos), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)});
+        }
+    }
+}
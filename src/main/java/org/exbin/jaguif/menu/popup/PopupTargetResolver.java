@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.awt.Point;
+import java.util.function.Supplier;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Interface for clipboard handler able to resolve link and image under popup
+ * trigger in background thread.
+ */
+@NullMarked
+public interface PopupTargetResolver {
+
+    /**
+     * Prepares resolution of link and image under popup trigger.
+     * <p>
+     * Called on event dispatch thread, so all lookups depending on views, such
+     * as model position of popup trigger, are performed here. Returned
+     * resolution only reads document model and can be invoked in background
+     * thread under document read lock.
+     *
+     * @param actionsState popup actions state with unresolved link and image
+     * @param locationOnScreen location of mouse popup trigger on screen or null
+     * for keyboard trigger
+     * @return resolution returning popup actions state with resolved link and
+     * image
+     */
+    Supplier<PopupActionsState> prepareTargetResolution(PopupActionsState actionsState, @Nullable Point locationOnScreen);
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Self-timing of popup handling.
+ * <p>
+ * When enabled, popup handling steps taking longer than threshold are logged,
+ * latencies of steps are recorded to histograms and time spent in popup
+ * handling is accumulated. Methods are expected to be called from event
+ * dispatch thread only, histograms can be read from any thread.
+ */
+@NullMarked
+public class PopupTiming {
+
+    public static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 50;
+
+    private static final Logger LOG = Logger.getLogger(PopupTiming.class.getName());
+
+    private volatile boolean enabled = false;
+    private long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD_MILLIS);
+    private long popupStart;
+    private long phaseStart;
+    private final LatencyHistogram[] phaseHistograms;
+    private final LatencyHistogram totalHistogram = new LatencyHistogram();
+    private long popupDispatchNanos = 0;
+    private long totalDispatchNanos = 0;
+
+    public PopupTiming() {
+        phaseHistograms = new LatencyHistogram[PopupTimingPhase.values().length];
+        for (int i = 0; i < phaseHistograms.length; i++) {
+            phaseHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    public void setSlowThresholdMillis(long slowThresholdMillis) {
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * Starts measuring of popup handling phases.
+     */
+    public void begin() {
+        if (enabled) {
+            popupStart = System.nanoTime();
+            phaseStart = popupStart;
+        }
+    }
+
+    /**
+     * Ends currently measured phase and starts measuring of the next one.
+     *
+     * @param phase finished phase
+     */
+    public void endPhase(PopupTimingPhase phase) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long duration = now - phaseStart;
+        if (duration > slowThresholdNanos) {
+            LOG.log(Level.INFO, "Popup handling step {0} took {1} ms", new Object[]{phase, TimeUnit.NANOSECONDS.toMillis(duration)});
+        }
+        phaseHistograms[phase.ordinal()].record(duration);
+        if (phase == PopupTimingPhase.SHOW) {
+            totalHistogram.record(now - popupStart);
+        }
+        phaseStart = now;
+    }
+
+    /**
+     * Records time of single event dispatch.
+     *
+     * @param totalNanos total dispatch time including popup handling
+     */
+    public void recordDispatch(long totalNanos) {
+        totalDispatchNanos += totalNanos;
+    }
+
+    /**
+     * Records time spent in popup processing of single event.
+     *
+     * @param popupNanos time spent in popup handling
+     */
+    public void recordPopupProcessing(long popupNanos) {
+        popupDispatchNanos += popupNanos;
+        if (popupNanos > slowThresholdNanos) {
+            LOG.log(Level.INFO, "Popup event processing took {0} ms", TimeUnit.NANOSECONDS.toMillis(popupNanos));
+        }
+    }
+
+    /**
+     * Returns accumulated time spent in popup handling.
+     *
+     * @return time in nanoseconds
+     */
+    public long getPopupDispatchNanos() {
+        return popupDispatchNanos;
+    }
+
+    /**
+     * Returns accumulated time of measured event dispatching including popup
+     * handling.
+     * <p>
+     * Stays zero when dispatching is not observable, for example for AWT
+     * event listener registration.
+     *
+     * @return time in nanoseconds
+     */
+    public long getTotalDispatchNanos() {
+        return totalDispatchNanos;
+    }
+
+    /**
+     * Returns histogram of latencies of given popup handling step.
+     *
+     * @param phase popup handling step
+     * @return latency histogram
+     */
+    public LatencyHistogram getPhaseHistogram(PopupTimingPhase phase) {
+        return phaseHistograms[phase.ordinal()];
+    }
+
+    /**
+     * Returns histogram of latencies from popup trigger to popup menu shown.
+     *
+     * @return latency histogram
+     */
+    public LatencyHistogram getTotalHistogram() {
+        return totalHistogram;
+    }
+
+    public void reset() {
+        popupDispatchNanos = 0;
+        totalDispatchNanos = 0;
+        for (LatencyHistogram histogram : phaseHistograms) {
+            histogram.reset();
+        }
+        totalHistogram.reset();
+    }
+
+    /**
+     * Logs share of popup handling on total dispatch time.
+     */
+    public void logSummary() {
+        long popupMillis = TimeUnit.NANOSECONDS.toMillis(popupDispatchNanos);
+        if (totalDispatchNanos > 0) {
+            long totalMillis = TimeUnit.NANOSECONDS.toMillis(totalDispatchNanos);
+            double share = popupDispatchNanos * 100.0 / totalDispatchNanos;
+            LOG.log(Level.INFO, "Popup handling took {0} ms of {1} ms event dispatch time ({2} %)", new Object[]{popupMillis, totalMillis, String.format("%.3f", share)});
+        } else {
+            LOG.log(Level.INFO, "Popup handling took {0} ms", popupMillis);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup;
+
+/**
+ * Enumeration of popup handling steps measured by popup timing.
+ */
+public enum PopupTimingPhase {
+    /**
+     * Search for component on which popup was triggered.
+     */
+    HIT_TEST,
+    /**
+     * Processing of registered popup event dispatchers.
+     */
+    DISPATCHER_CHAIN,
+    /**
+     * Creation of clipboard handler for component.
+     */
+    HANDLER_CREATION,
+    /**
+     * Update of popup actions state for clipboard handler.
+     */
+    ACTION_UPDATE,
+    /**
+     * Construction of popup menu.
+     */
+    MENU_BUILD,
+    /**
+     * Showing of popup menu.
+     */
+    SHOW;
+}
@@ -17,14 +17,22 @@ package org.exbin.jaguif.menu.popup.api;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.util.Collection;
+import java.util.Collections;
 import org.jspecify.annotations.NullMarked;
 
 /**
  * Interface for popup event trigger dispatcher.
+ * <p>
+ * Dispatcher declaring component classes or client property keys is consulted
+ * only when target component or any of its ancestors matches. Declarations
+ * and priority are read once when dispatcher is added.
  */
 @NullMarked
 public interface ComponentPopupEventDispatcher {
 
+    int DEFAULT_PRIORITY = 0;
+
     /**
      * Processes event for popup trigger actions.
      *
@@ -40,4 +48,32 @@ public interface ComponentPopupEventDispatcher {
      * @return true if event was processed
      */
     boolean dispatchKeyEvent(KeyEvent keyEvent);
+
+    /**
+     * Returns classes of components handled by this dispatcher.
+     *
+     * @return component classes or empty collection if not restricted
+     */
+    default Collection<Class<?>> getComponentClasses() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns client property keys of components handled by this dispatcher.
+     *
+     * @return client property keys or empty collection if not restricted
+     */
+    default Collection<Object> getClientPropertyKeys() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns priority of dispatcher, dispatchers with higher priority are
+     * consulted first.
+     *
+     * @return priority
+     */
+    default int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.api;
+
+import java.awt.Component;
+import java.awt.Point;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Locator of position for popup menu invoked using keyboard.
+ *
+ * @param <T> component type
+ */
+@NullMarked
+@FunctionalInterface
+public interface PopupAnchorLocator<T extends Component> {
+
+    /**
+     * Returns position for popup menu, typically near caret or selected item.
+     *
+     * @param component component
+     * @return position relative to component or null for default position
+     */
+    @Nullable
+    Point locateAnchor(T component);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.api;
+
+import java.awt.Component;
+import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Factory for clipboard handler of popup menu for component.
+ *
+ * @param <T> component type
+ */
+@NullMarked
+@FunctionalInterface
+public interface PopupHandlerFactory<T extends Component> {
+
+    /**
+     * Creates clipboard handler for given component.
+     *
+     * @param component component
+     * @return clipboard handler
+     */
+    TextClipboardOperationController createHandler(T component);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.api;
+
+import java.awt.Component;
+import java.awt.Point;
+import java.util.List;
+import javax.swing.Action;
+import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.exbin.jaguif.menu.popup.PopupActionsState;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Interface for contributor of additional popup menu items.
+ * <p>
+ * When deferred popup items are enabled, contributor is called from background
+ * thread while read lock of the document is held for text components and
+ * returned actions are inserted into already visible popup menu.
+ */
+@NullMarked
+public interface PopupItemsContributor {
+
+    /**
+     * Returns actions to add to popup menu of component.
+     *
+     * @param component invoker component
+     * @param clipboardHandler clipboard handler of component
+     * @param actionsState resolved state of popup actions
+     * @param locationOnScreen location of mouse popup trigger on screen or null
+     * for keyboard trigger
+     * @return list of actions, empty if nothing is contributed
+     */
+    List<Action> getPopupActions(Component component, TextClipboardOperationController clipboardHandler, PopupActionsState actionsState, @Nullable Point locationOnScreen);
+}
@@ -27,6 +27,7 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Dictionary;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jspecify.annotations.Nullable;
@@ -37,7 +38,6 @@ import javax.swing.SwingUtilities;
 import javax.swing.plaf.TextUI;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
-import javax.swing.text.DefaultEditorKit;
 import javax.swing.text.Document;
 import javax.swing.text.Element;
 import javax.swing.text.Position;
@@ -46,6 +46,9 @@ import javax.swing.text.html.HTML;
 import javax.swing.text.html.HTMLDocument;
 import org.exbin.jaguif.menu.popup.ImageActionsHandler;
 import org.exbin.jaguif.menu.popup.LinkActionsHandler;
+import org.exbin.jaguif.menu.popup.PopupActionsState;
+import org.exbin.jaguif.menu.popup.PopupActionsStateProvider;
+import org.exbin.jaguif.menu.popup.PopupTargetResolver;
 import org.exbin.jaguif.menu.popup.PositionImageActionsHandler;
 import org.exbin.jaguif.menu.popup.PositionLinkActionsHandler;
 import org.exbin.jaguif.utils.ActionUtils;
@@ -57,7 +60,7 @@ import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
  * Popup handler for JEditorPane.
  */
 @NullMarked
-public class EditorPanePopupHandler implements TextClipboardOperationController, LinkActionsHandler, PositionLinkActionsHandler, ImageActionsHandler, PositionImageActionsHandler {
+public class EditorPanePopupHandler implements TextClipboardOperationController, LinkActionsHandler, PositionLinkActionsHandler, ImageActionsHandler, PositionImageActionsHandler, PopupActionsStateProvider, PopupTargetResolver {
 
     private static final String MAP_PROPERTY = "__MAP__";
     private static final String IMAGE_CACHE_PROPERTY = "imageCache";
@@ -75,17 +78,17 @@ public class EditorPanePopupHandler implements TextClipboardOperationController,
 
     @Override
     public void performCopy() {
-        editorPane.copy();
+        ClipboardUtils.copyText(editorPane);
     }
 
     @Override
     public void performPaste() {
-        editorPane.paste();
+        ClipboardUtils.pasteText(editorPane);
     }
 
     @Override
     public void performDelete() {
-        ActionUtils.invokeTextAction(editorPane, DefaultEditorKit.deleteNextCharAction);
+        ActionUtils.deleteSelection(editorPane);
     }
 
     @Override
@@ -111,12 +114,12 @@ public class EditorPanePopupHandler implements TextClipboardOperationController,
 
     @Override
     public boolean canSelectAll() {
-        return editorPane.isEnabled() && !editorPane.getText().isEmpty();
+        return editorPane.isEnabled() && editorPane.getDocument().getLength() > 0;
     }
 
     @Override
     public boolean isValidForPaste() {
-        return isEditable();
+        return isEditable() && ClipboardUtils.isClipboardTextAvailable();
     }
 
     @Override
@@ -146,11 +149,50 @@ public class EditorPanePopupHandler implements TextClipboardOperationController,
         return EditorPanePopupHandler.hasImageSrc(editorPane, locationOnScreen) != null;
     }
 
+    @Override
+    public PopupActionsState getActionsState(@Nullable Point locationOnScreen) {
+        boolean editable = isEditable();
+        PopupActionsState clipboardState = new PopupActionsState(editable, editable && ClipboardUtils.isClipboardTextAvailable(), hasSelection(), editable, canSelectAll(), false, null, null);
+        return prepareTargetResolution(clipboardState, locationOnScreen).get();
+    }
+
+    @Override
+    public Supplier<PopupActionsState> prepareTargetResolution(PopupActionsState actionsState, @Nullable Point locationOnScreen) {
+        Document document = editorPane.getDocument();
+        if (!(document instanceof HTMLDocument)) {
+            return () -> actionsState.withLinkAndImage(false, null, false, null);
+        }
+
+        HTMLDocument htmlDocument = (HTMLDocument) document;
+        Point position = new Point();
+        int pos;
+        if (locationOnScreen == null) {
+            pos = editorPane.getCaretPosition();
+        } else {
+            position.setLocation(locationOnScreen);
+            SwingUtilities.convertPointFromScreen(position, editorPane);
+            // Single model lookup shared by link and image resolution
+            @SuppressWarnings("deprecation")
+            int viewPos = editorPane.viewToModel(position);
+            pos = viewPos;
+        }
+        if (pos < 0) {
+            return () -> actionsState.withLinkAndImage(false, null, false, null);
+        }
+
+        Rectangle imageMapBounds = getImageMapBounds(editorPane, pos);
+        return () -> {
+            String linkUrl = getLinkUrl(htmlDocument, pos, imageMapBounds, position.x, position.y);
+            String imageSrc = hasImageSrc(htmlDocument, pos);
+            return actionsState.withLinkAndImage(linkUrl != null, linkUrl, imageSrc != null, imageSrc);
+        };
+    }
+
     @Override
     public void performCopyLink() {
         String url = EditorPanePopupHandler.getLinkUrl(editorPane, editorPane.getCaretPosition());
         StringSelection stringSelection = new StringSelection(url);
-        ClipboardUtils.getClipboard().setContents(stringSelection, stringSelection);
+        ClipboardUtils.setContents(stringSelection, stringSelection);
     }
 
     @Override
@@ -164,7 +206,7 @@ public class EditorPanePopupHandler implements TextClipboardOperationController,
         SwingUtilities.convertPointFromScreen(locationOnScreen, editorPane);
         String url = EditorPanePopupHandler.getLinkUrl(editorPane, locationOnScreen);
         StringSelection stringSelection = new StringSelection(url);
-        ClipboardUtils.getClipboard().setContents(stringSelection, stringSelection);
+        ClipboardUtils.setContents(stringSelection, stringSelection);
     }
 
     @Override
@@ -182,6 +224,13 @@ public class EditorPanePopupHandler implements TextClipboardOperationController,
         }
     }
 
+    @Override
+    public void performCopyImage(String imageSrc) {
+        if (editorPane.getDocument() instanceof HTMLDocument) {
+            copyImageToClipboard((HTMLDocument) editorPane.getDocument(), imageSrc);
+        }
+    }
+
     @Override
     public void performCopyImage(Point locationOnScreen) {
         SwingUtilities.convertPointFromScreen(locationOnScreen, editorPane);
@@ -215,62 +264,90 @@ public class EditorPanePopupHandler implements TextClipboardOperationController,
     public static String getLinkUrl(JEditorPane editorPane, int caretPosition, int offsetX, int offsetY) {
         Document document = editorPane.getDocument();
         if (document instanceof HTMLDocument) {
-            HTMLDocument htmlDocument = (HTMLDocument) document;
-            // Note: From HTMLEditorKit.activateLink
-            Element e = htmlDocument.getCharacterElement(caretPosition);
-            AttributeSet a = e.getAttributes();
-            AttributeSet anchor = (AttributeSet) a.getAttribute(HTML.Tag.A);
-            String href;
-            if (anchor == null) {
-                Object useMap = a.getAttribute(HTML.Attribute.USEMAP);
-                if (useMap != null && (useMap instanceof String)) {
-                    Object map = null;
-                    Object maps = htmlDocument.getProperty(MAP_PROPERTY);
-
-                    if (maps != null && (maps instanceof java.util.Hashtable)) {
-                        map = ((java.util.Hashtable) maps).get((String) useMap);
-                    }
+            return getLinkUrl((HTMLDocument) document, caretPosition, getImageMapBounds(editorPane, caretPosition), offsetX, offsetY);
+        }
+
+        return null;
+    }
 
-                    if (map != null && caretPosition < htmlDocument.getLength()) {
-                        Rectangle bounds;
-                        TextUI ui = editorPane.getUI();
-                        try {
-                            @SuppressWarnings("deprecation")
-                            Shape lBounds = ui.modelToView(editorPane, caretPosition, Position.Bias.Forward);
-                            @SuppressWarnings("deprecation")
-                            Shape rBounds = ui.modelToView(editorPane, caretPosition + 1, Position.Bias.Backward);
-                            bounds = lBounds.getBounds();
-                            bounds.add((rBounds instanceof Rectangle) ? (Rectangle) rBounds : rBounds.getBounds());
-                        } catch (BadLocationException ble) {
-                            bounds = null;
-                        }
-                        if (bounds != null) {
-                            // Use reflection because javax.swing.text.html.Map is package protected
-                            Class[] paramTypes = {int.class, int.class, int.class, int.class};
-                            Method method;
-                            try {
-                                method = map.getClass().getMethod("getArea", paramTypes);
-                                AttributeSet area = (AttributeSet) method.invoke(null, bounds.x + offsetX, bounds.y + offsetY, bounds.width, bounds.height);
-                                if (area != null) {
-                                    return (String) area.getAttribute(HTML.Attribute.HREF);
-                                }
-                            } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                                Logger.getLogger(EditorPanePopupHandler.class.getName()).log(Level.SEVERE, null, ex);
-                            }
-                        }
+    /**
+     * Returns link URL at given position using only document model.
+     *
+     * @param htmlDocument HTML document
+     * @param caretPosition position in document
+     * @param imageMapBounds bounds of image with image map at position or null
+     * @param offsetX horizontal offset in image
+     * @param offsetY vertical offset in image
+     * @return link URL or null
+     */
+    @Nullable
+    private static String getLinkUrl(HTMLDocument htmlDocument, int caretPosition, @Nullable Rectangle imageMapBounds, int offsetX, int offsetY) {
+        // Note: From HTMLEditorKit.activateLink
+        Element e = htmlDocument.getCharacterElement(caretPosition);
+        AttributeSet a = e.getAttributes();
+        AttributeSet anchor = (AttributeSet) a.getAttribute(HTML.Tag.A);
+        if (anchor != null) {
+            return (String) anchor.getAttribute(HTML.Attribute.HREF);
+        }
+
+        Object useMap = a.getAttribute(HTML.Attribute.USEMAP);
+        if (useMap != null && (useMap instanceof String) && imageMapBounds != null) {
+            Object map = null;
+            Object maps = htmlDocument.getProperty(MAP_PROPERTY);
+
+            if (maps != null && (maps instanceof java.util.Hashtable)) {
+                map = ((java.util.Hashtable) maps).get((String) useMap);
+            }
+
+            if (map != null) {
+                // Use reflection because javax.swing.text.html.Map is package protected
+                Class[] paramTypes = {int.class, int.class, int.class, int.class};
+                Method method;
+                try {
+                    method = map.getClass().getMethod("getArea", paramTypes);
+                    AttributeSet area = (AttributeSet) method.invoke(null, imageMapBounds.x + offsetX, imageMapBounds.y + offsetY, imageMapBounds.width, imageMapBounds.height);
+                    if (area != null) {
+                        return (String) area.getAttribute(HTML.Attribute.HREF);
                     }
+                } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+                    Logger.getLogger(EditorPanePopupHandler.class.getName()).log(Level.SEVERE, null, ex);
                 }
-                return null;
-            } else {
-                href = (String) anchor.getAttribute(HTML.Attribute.HREF);
             }
-
-            return href;
         }
 
         return null;
     }
 
+    /**
+     * Returns view bounds of image with image map at given position.
+     * <p>
+     * Uses views, so must be called on event dispatch thread.
+     *
+     * @param editorPane editor pane
+     * @param caretPosition position in document
+     * @return bounds or null if there is no image map at position
+     */
+    @Nullable
+    private static Rectangle getImageMapBounds(JEditorPane editorPane, int caretPosition) {
+        HTMLDocument htmlDocument = (HTMLDocument) editorPane.getDocument();
+        if (caretPosition >= htmlDocument.getLength() || !(htmlDocument.getCharacterElement(caretPosition).getAttributes().getAttribute(HTML.Attribute.USEMAP) instanceof String)) {
+            return null;
+        }
+
+        TextUI ui = editorPane.getUI();
+        try {
+            @SuppressWarnings("deprecation")
+            Shape lBounds = ui.modelToView(editorPane, caretPosition, Position.Bias.Forward);
+            @SuppressWarnings("deprecation")
+            Shape rBounds = ui.modelToView(editorPane, caretPosition + 1, Position.Bias.Backward);
+            Rectangle bounds = lBounds.getBounds();
+            bounds.add((rBounds instanceof Rectangle) ? (Rectangle) rBounds : rBounds.getBounds());
+            return bounds;
+        } catch (BadLocationException ble) {
+            return null;
+        }
+    }
+
     @Nullable
     public static String hasImageSrc(JEditorPane editorPane, int caretPosition) {
         return EditorPanePopupHandler.hasImageSrc(editorPane, caretPosition, 0, 0);
@@ -294,15 +371,21 @@ public class EditorPanePopupHandler implements TextClipboardOperationController,
     public static String hasImageSrc(JEditorPane editorPane, int caretPosition, int offsetX, int offsetY) {
         Document document = editorPane.getDocument();
         if (document instanceof HTMLDocument) {
-            HTMLDocument htmlDocument = (HTMLDocument) document;
-            Element e = htmlDocument.getCharacterElement(caretPosition);
-            AttributeSet a = e.getAttributes();
-            Object tagName = a.getAttribute(StyleConstants.NameAttribute);
-            if (tagName instanceof HTML.Tag) {
-                HTML.Tag tag = (HTML.Tag) tagName;
-                if (tag == HTML.Tag.IMG) {
-                    return (String) a.getAttribute(HTML.Attribute.SRC);
-                }
+            return hasImageSrc((HTMLDocument) document, caretPosition);
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static String hasImageSrc(HTMLDocument htmlDocument, int caretPosition) {
+        Element e = htmlDocument.getCharacterElement(caretPosition);
+        AttributeSet a = e.getAttributes();
+        Object tagName = a.getAttribute(StyleConstants.NameAttribute);
+        if (tagName instanceof HTML.Tag) {
+            HTML.Tag tag = (HTML.Tag) tagName;
+            if (tag == HTML.Tag.IMG) {
+                return (String) a.getAttribute(HTML.Attribute.SRC);
             }
         }
 
@@ -53,7 +53,7 @@ public class ListPopupHandler implements TextClipboardOperationController {
             }
         }
 
-        ClipboardUtils.getClipboard().setContents(new StringSelection(builder.toString()), null);
+        ClipboardUtils.setContents(new StringSelection(builder.toString()));
     }
 
     @Override
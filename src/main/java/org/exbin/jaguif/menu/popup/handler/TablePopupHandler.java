@@ -76,7 +76,7 @@ public class TablePopupHandler implements TextClipboardOperationController {
             }
         }
 
-        ClipboardUtils.getClipboard().setContents(new StringSelection(builder.toString()), null);
+        ClipboardUtils.setContents(new StringSelection(builder.toString()));
     }
 
     @Override
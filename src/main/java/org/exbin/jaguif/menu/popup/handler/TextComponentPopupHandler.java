@@ -20,6 +20,7 @@ import javax.swing.SwingUtilities;
 import javax.swing.text.DefaultEditorKit;
 import javax.swing.text.JTextComponent;
 import org.exbin.jaguif.utils.ActionUtils;
+import org.exbin.jaguif.utils.ClipboardUtils;
 import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
 
 /**
@@ -41,17 +42,17 @@ public class TextComponentPopupHandler implements TextClipboardOperationControll
 
     @Override
     public void performCopy() {
-        txtComp.copy();
+        ClipboardUtils.copyText(txtComp);
     }
 
     @Override
     public void performPaste() {
-        txtComp.paste();
+        ClipboardUtils.pasteText(txtComp);
     }
 
     @Override
     public void performDelete() {
-        ActionUtils.invokeTextAction(txtComp, DefaultEditorKit.deleteNextCharAction);
+        ActionUtils.deleteSelection(txtComp);
     }
 
     @Override
@@ -83,12 +84,12 @@ public class TextComponentPopupHandler implements TextClipboardOperationControll
 
     @Override
     public boolean canSelectAll() {
-        return txtComp.isEnabled() && !txtComp.getText().isEmpty();
+        return txtComp.isEnabled() && txtComp.getDocument().getLength() > 0;
     }
 
     @Override
     public boolean isValidForPaste() {
-        return true;
+        return ClipboardUtils.isClipboardTextAvailable();
     }
 
     @Override
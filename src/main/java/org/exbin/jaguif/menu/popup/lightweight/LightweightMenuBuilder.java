@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.lightweight;
+
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.JRadioButtonMenuItem;
+import org.exbin.jaguif.utils.UiUtils;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Menu builder creating popup menus which paint all entries inside single
+ * lightweight component.
+ * <p>
+ * Menu items are created without UI delegates and serve only as models bound
+ * to actions. Submenus are created as regular menus, popup menu containing
+ * submenu falls back to regular menu components.
+ */
+@NullMarked
+public class LightweightMenuBuilder implements UiUtils.MenuBuilder {
+
+    @Override
+    public JMenu buildMenu() {
+        return new JMenu();
+    }
+
+    @Override
+    public JPopupMenu buildPopupMenu() {
+        return new LightweightPopupMenu();
+    }
+
+    @Override
+    public JMenuItem buildMenuItem() {
+        return new LightweightMenuItem();
+    }
+
+    @Override
+    public JCheckBoxMenuItem buildCheckBoxMenuItem() {
+        return new LightweightCheckBoxMenuItem();
+    }
+
+    @Override
+    public JRadioButtonMenuItem buildRadioButtonMenuItem() {
+        return new LightweightRadioButtonMenuItem();
+    }
+
+    /**
+     * Menu item without UI delegate.
+     */
+    @NullMarked
+    public static class LightweightMenuItem extends JMenuItem implements LightweightEntry {
+
+        private boolean defaultUI = false;
+
+        @Override
+        public void updateUI() {
+            if (defaultUI) {
+                super.updateUI();
+            }
+        }
+
+        @Override
+        public void installDefaultUI() {
+            defaultUI = true;
+            super.updateUI();
+        }
+    }
+
+    /**
+     * Check box menu item without UI delegate.
+     */
+    @NullMarked
+    public static class LightweightCheckBoxMenuItem extends JCheckBoxMenuItem implements LightweightEntry {
+
+        private boolean defaultUI = false;
+
+        @Override
+        public void updateUI() {
+            if (defaultUI) {
+                super.updateUI();
+            }
+        }
+
+        @Override
+        public void installDefaultUI() {
+            defaultUI = true;
+            super.updateUI();
+        }
+    }
+
+    /**
+     * Radio button menu item without UI delegate.
+     */
+    @NullMarked
+    public static class LightweightRadioButtonMenuItem extends JRadioButtonMenuItem implements LightweightEntry {
+
+        private boolean defaultUI = false;
+
+        @Override
+        public void updateUI() {
+            if (defaultUI) {
+                super.updateUI();
+            }
+        }
+
+        @Override
+        public void installDefaultUI() {
+            defaultUI = true;
+            super.updateUI();
+        }
+    }
+
+    /**
+     * Popup menu separator without UI delegate.
+     */
+    @NullMarked
+    public static class LightweightSeparator extends JPopupMenu.Separator implements LightweightEntry {
+
+        private boolean defaultUI = false;
+
+        @Override
+        public void updateUI() {
+            if (defaultUI) {
+                super.updateUI();
+            }
+        }
+
+        @Override
+        public void installDefaultUI() {
+            defaultUI = true;
+            super.updateUI();
+        }
+    }
+}
@@ -0,0 +1,694 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.lightweight;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.accessibility.Accessible;
+import javax.accessibility.AccessibleContext;
+import javax.accessibility.AccessibleRole;
+import javax.swing.Action;
+import javax.swing.Icon;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JComponent;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JRadioButtonMenuItem;
+import javax.swing.KeyStroke;
+import javax.swing.MenuSelectionManager;
+import javax.swing.ToolTipManager;
+import javax.swing.UIManager;
+import javax.swing.event.MenuKeyEvent;
+import javax.swing.event.MenuKeyListener;
+import javax.swing.plaf.basic.BasicGraphicsUtils;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Popup menu painting all entries inside single lightweight component.
+ * <p>
+ * Menu items added to popup menu are kept as entries and are not added as
+ * child components. Hover, keyboard navigation, mnemonics and accessibility
+ * are handled by popup menu itself. When component other than menu item or
+ * separator is added, popup menu falls back to regular menu components.
+ */
+@NullMarked
+public class LightweightPopupMenu extends JPopupMenu {
+
+    private static final int ICON_GAP = 6;
+    private static final int ACCELERATOR_GAP = 24;
+    private static final int RIGHT_GAP = 8;
+    private static final int MIN_ICON_SIZE = 16;
+    private static final int ROW_PADDING = 4;
+    private static final int SEPARATOR_HEIGHT = 7;
+
+    private final List<Component> entries = new ArrayList<>();
+    private final EntriesPanel entriesPanel = new EntriesPanel();
+    private final PropertyChangeListener entryChangeListener = (event) -> entriesChanged();
+    private boolean materialized = false;
+
+    public LightweightPopupMenu() {
+        super.addImpl(entriesPanel, null, -1);
+        addMenuKeyListener(new EntriesKeyListener());
+    }
+
+    /**
+     * Returns entries of popup menu.
+     *
+     * @return list of entries
+     */
+    public List<Component> getEntries() {
+        return materialized ? Arrays.asList(getComponents()) : new ArrayList<>(entries);
+    }
+
+    /**
+     * Returns whether popup menu fell back to regular menu components.
+     *
+     * @return true if entries are regular child components
+     */
+    public boolean isMaterialized() {
+        return materialized;
+    }
+
+    @Override
+    protected void addImpl(Component component, @Nullable Object constraints, int index) {
+        if (materialized || component == entriesPanel) {
+            super.addImpl(component, constraints, index);
+            return;
+        }
+
+        if (!isEntry(component)) {
+            materialize();
+            super.addImpl(component, constraints, index);
+            return;
+        }
+
+        entries.add(index < 0 ? entries.size() : index, component);
+        component.addPropertyChangeListener(entryChangeListener);
+        entriesChanged();
+    }
+
+    @Override
+    public void insert(Component component, int index) {
+        if (materialized || !isEntry(component)) {
+            super.insert(component, index);
+            return;
+        }
+
+        if (index < 0) {
+            throw new IllegalArgumentException("index less than zero.");
+        }
+        addImpl(component, null, Math.min(index, entries.size()));
+    }
+
+    @Override
+    public void addSeparator() {
+        add(new LightweightMenuBuilder.LightweightSeparator());
+    }
+
+    @Override
+    protected JMenuItem createActionComponent(Action action) {
+        JMenuItem menuItem = new LightweightMenuBuilder.LightweightMenuItem();
+        menuItem.setAction(action);
+        return menuItem;
+    }
+
+    @Override
+    public void remove(Component component) {
+        if (!materialized && entries.remove(component)) {
+            component.removePropertyChangeListener(entryChangeListener);
+            entriesPanel.entryRemoved(component);
+            entriesChanged();
+            return;
+        }
+
+        super.remove(component);
+    }
+
+    @Override
+    public void remove(int index) {
+        if (materialized) {
+            super.remove(index);
+            return;
+        }
+
+        remove(entries.get(index));
+    }
+
+    @Override
+    public void removeAll() {
+        if (materialized) {
+            super.removeAll();
+            return;
+        }
+
+        for (Component entry : entries) {
+            entry.removePropertyChangeListener(entryChangeListener);
+        }
+        entries.clear();
+        entriesPanel.entryRemoved(null);
+        entriesChanged();
+    }
+
+    @Override
+    public int getComponentIndex(Component component) {
+        return materialized ? super.getComponentIndex(component) : entries.indexOf(component);
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        if (!materialized) {
+            entriesPanel.select(-1);
+            if (visible) {
+                entriesPanel.invalidateLayout();
+            }
+        }
+        super.setVisible(visible);
+    }
+
+    private void entriesChanged() {
+        entriesPanel.invalidateLayout();
+        if (isVisible()) {
+            entriesPanel.revalidate();
+            entriesPanel.repaint();
+        }
+    }
+
+    private static boolean isEntry(Component component) {
+        return (component instanceof JMenuItem && !(component instanceof JMenu)) || component instanceof JPopupMenu.Separator;
+    }
+
+    private void materialize() {
+        materialized = true;
+        super.remove(entriesPanel);
+        for (Component entry : entries) {
+            entry.removePropertyChangeListener(entryChangeListener);
+            if (entry instanceof LightweightEntry) {
+                ((LightweightEntry) entry).installDefaultUI();
+            }
+            super.addImpl(entry, null, -1);
+        }
+        entries.clear();
+    }
+
+    private static boolean isSelectable(Component entry) {
+        return entry instanceof JMenuItem && entry.isVisible() && entry.isEnabled();
+    }
+
+    private void activate(JMenuItem menuItem) {
+        MenuSelectionManager.defaultManager().clearSelectedPath();
+        menuItem.doClick(0);
+    }
+
+    /**
+     * Handles keyboard navigation and mnemonics while popup menu is open.
+     */
+    @NullMarked
+    private class EntriesKeyListener implements MenuKeyListener {
+
+        @Override
+        public void menuKeyTyped(MenuKeyEvent event) {
+        }
+
+        @Override
+        public void menuKeyPressed(MenuKeyEvent event) {
+            if (materialized) {
+                return;
+            }
+
+            switch (event.getKeyCode()) {
+                case KeyEvent.VK_DOWN:
+                    entriesPanel.selectNext(entriesPanel.selectedIndex, 1);
+                    event.consume();
+                    break;
+                case KeyEvent.VK_UP:
+                    entriesPanel.selectNext(entriesPanel.selectedIndex < 0 ? entries.size() : entriesPanel.selectedIndex, -1);
+                    event.consume();
+                    break;
+                case KeyEvent.VK_HOME:
+                    entriesPanel.selectNext(-1, 1);
+                    event.consume();
+                    break;
+                case KeyEvent.VK_END:
+                    entriesPanel.selectNext(entries.size(), -1);
+                    event.consume();
+                    break;
+                case KeyEvent.VK_ENTER:
+                case KeyEvent.VK_SPACE: {
+                    int selectedIndex = entriesPanel.selectedIndex;
+                    if (selectedIndex >= 0) {
+                        event.consume();
+                        activate((JMenuItem) entries.get(selectedIndex));
+                    }
+                    break;
+                }
+                default:
+                    if ((event.getModifiersEx() & (InputEvent.CTRL_DOWN_MASK | InputEvent.META_DOWN_MASK)) == 0) {
+                        processMnemonic(event);
+                    }
+            }
+        }
+
+        @Override
+        public void menuKeyReleased(MenuKeyEvent event) {
+        }
+
+        private void processMnemonic(MenuKeyEvent event) {
+            int keyCode = event.getKeyCode();
+            int matches = 0;
+            int firstMatch = -1;
+            int nextMatch = -1;
+            for (int i = 0; i < entries.size(); i++) {
+                Component entry = entries.get(i);
+                if (isSelectable(entry) && ((JMenuItem) entry).getMnemonic() == keyCode) {
+                    matches++;
+                    if (firstMatch < 0) {
+                        firstMatch = i;
+                    }
+                    if (nextMatch < 0 && i > entriesPanel.selectedIndex) {
+                        nextMatch = i;
+                    }
+                }
+            }
+
+            if (matches == 0) {
+                return;
+            }
+
+            event.consume();
+            if (matches == 1) {
+                activate((JMenuItem) entries.get(firstMatch));
+            } else {
+                entriesPanel.select(nextMatch >= 0 ? nextMatch : firstMatch);
+            }
+        }
+    }
+
+    /**
+     * Component painting all entries.
+     */
+    @NullMarked
+    private class EntriesPanel extends JPanel {
+
+        private int selectedIndex = -1;
+        private boolean layoutValid = false;
+        private int[] rowPositions = new int[1];
+        private int preferredWidth;
+        private int iconColumnWidth;
+        private int acceleratorColumnWidth;
+        @Nullable
+        private Font textFont;
+        @Nullable
+        private Font acceleratorFont;
+        @Nullable
+        private Color foreground;
+        @Nullable
+        private Color selectionBackground;
+        @Nullable
+        private Color selectionForeground;
+        @Nullable
+        private Color disabledForeground;
+        @Nullable
+        private Color acceleratorForeground;
+        @Nullable
+        private Color separatorForeground;
+
+        public EntriesPanel() {
+            setOpaque(false);
+            MouseAdapter mouseAdapter = new MouseAdapter() {
+                @Override
+                public void mouseMoved(MouseEvent event) {
+                    selectAt(event.getY());
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent event) {
+                    selectAt(event.getY());
+                }
+
+                @Override
+                public void mousePressed(MouseEvent event) {
+                    selectAt(event.getY());
+                }
+
+                @Override
+                public void mouseExited(MouseEvent event) {
+                    select(-1);
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent event) {
+                    int index = getEntryIndexAt(event.getY());
+                    if (index >= 0 && index == selectedIndex) {
+                        activate((JMenuItem) entries.get(index));
+                    }
+                }
+            };
+            addMouseListener(mouseAdapter);
+            addMouseMotionListener(mouseAdapter);
+            ToolTipManager.sharedInstance().registerComponent(this);
+        }
+
+        @Override
+        public void updateUI() {
+            super.updateUI();
+            textFont = UIManager.getFont("MenuItem.font");
+            acceleratorFont = UIManager.getFont("MenuItem.acceleratorFont");
+            foreground = UIManager.getColor("MenuItem.foreground");
+            selectionBackground = UIManager.getColor("MenuItem.selectionBackground");
+            selectionForeground = UIManager.getColor("MenuItem.selectionForeground");
+            disabledForeground = UIManager.getColor("MenuItem.disabledForeground");
+            acceleratorForeground = UIManager.getColor("MenuItem.acceleratorForeground");
+            separatorForeground = UIManager.getColor("Separator.foreground");
+            layoutValid = false;
+        }
+
+        void invalidateLayout() {
+            layoutValid = false;
+        }
+
+        void entryRemoved(@Nullable Component entry) {
+            if (selectedIndex >= 0 && (entry == null || entries.indexOf(entry) < 0)) {
+                select(-1);
+            }
+        }
+
+        private Font getTextFont() {
+            return textFont != null ? textFont : getFont();
+        }
+
+        private Font getAcceleratorFont() {
+            return acceleratorFont != null ? acceleratorFont : getTextFont();
+        }
+
+        private void ensureLayout() {
+            if (layoutValid) {
+                return;
+            }
+
+            FontMetrics textMetrics = getFontMetrics(getTextFont());
+            FontMetrics acceleratorMetrics = getFontMetrics(getAcceleratorFont());
+            int textHeight = textMetrics.getHeight();
+            int iconSize = MIN_ICON_SIZE;
+            int textWidth = 0;
+            int acceleratorWidth = 0;
+            for (Component entry : entries) {
+                if (entry instanceof JMenuItem && entry.isVisible()) {
+                    JMenuItem menuItem = (JMenuItem) entry;
+                    Icon icon = menuItem.getIcon();
+                    if (icon != null) {
+                        iconSize = Math.max(iconSize, Math.max(icon.getIconWidth(), icon.getIconHeight()));
+                    }
+                    String text = menuItem.getText();
+                    if (text != null) {
+                        textWidth = Math.max(textWidth, textMetrics.stringWidth(text));
+                    }
+                    String acceleratorText = getAcceleratorText(menuItem);
+                    if (acceleratorText != null) {
+                        acceleratorWidth = Math.max(acceleratorWidth, acceleratorMetrics.stringWidth(acceleratorText));
+                    }
+                }
+            }
+
+            int rowHeight = Math.max(textHeight, iconSize) + ROW_PADDING;
+            if (rowPositions.length != entries.size() + 1) {
+                rowPositions = new int[entries.size() + 1];
+            }
+            int position = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                rowPositions[i] = position;
+                Component entry = entries.get(i);
+                if (entry.isVisible()) {
+                    position += entry instanceof JMenuItem ? rowHeight : SEPARATOR_HEIGHT;
+                }
+            }
+            rowPositions[entries.size()] = position;
+
+            iconColumnWidth = ICON_GAP + iconSize + ICON_GAP;
+            acceleratorColumnWidth = acceleratorWidth > 0 ? ACCELERATOR_GAP + acceleratorWidth : 0;
+            preferredWidth = iconColumnWidth + textWidth + acceleratorColumnWidth + RIGHT_GAP;
+            layoutValid = true;
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            ensureLayout();
+            return new Dimension(preferredWidth, rowPositions[entries.size()]);
+        }
+
+        @Override
+        public Dimension getMinimumSize() {
+            return getPreferredSize();
+        }
+
+        @Override
+        public Dimension getMaximumSize() {
+            return getPreferredSize();
+        }
+
+        @Override
+        protected void paintComponent(Graphics graphics) {
+            ensureLayout();
+            Graphics2D g = (Graphics2D) graphics.create();
+            try {
+                Object desktopHints = Toolkit.getDefaultToolkit().getDesktopProperty("awt/font/desktophints");
+                if (desktopHints instanceof Map) {
+                    g.addRenderingHints((Map<?, ?>) desktopHints);
+                }
+
+                int width = getWidth();
+                FontMetrics textMetrics = getFontMetrics(getTextFont());
+                FontMetrics acceleratorMetrics = getFontMetrics(getAcceleratorFont());
+                for (int i = 0; i < entries.size(); i++) {
+                    Component entry = entries.get(i);
+                    if (!entry.isVisible()) {
+                        continue;
+                    }
+
+                    int top = rowPositions[i];
+                    int height = rowPositions[i + 1] - top;
+                    if (!g.hitClip(0, top, width, height)) {
+                        continue;
+                    }
+
+                    if (entry instanceof JMenuItem) {
+                        paintMenuItem(g, (JMenuItem) entry, i == selectedIndex, top, width, height, textMetrics, acceleratorMetrics);
+                    } else {
+                        g.setColor(separatorForeground != null ? separatorForeground : Color.GRAY);
+                        g.drawLine(0, top + height / 2, width, top + height / 2);
+                    }
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+
+        private void paintMenuItem(Graphics2D g, JMenuItem menuItem, boolean selected, int top, int width, int height, FontMetrics textMetrics, FontMetrics acceleratorMetrics) {
+            boolean enabled = menuItem.isEnabled();
+            Color textColor;
+            if (selected && selectionBackground != null) {
+                g.setColor(selectionBackground);
+                g.fillRect(0, top, width, height);
+            }
+            if (!enabled) {
+                textColor = disabledForeground != null ? disabledForeground : Color.GRAY;
+            } else if (selected && selectionForeground != null) {
+                textColor = selectionForeground;
+            } else {
+                textColor = foreground != null ? foreground : getForeground();
+            }
+
+            Icon icon = enabled ? menuItem.getIcon() : menuItem.getDisabledIcon();
+            int iconAreaSize = iconColumnWidth - 2 * ICON_GAP;
+            if (icon != null) {
+                icon.paintIcon(this, g, ICON_GAP + (iconAreaSize - icon.getIconWidth()) / 2, top + (height - icon.getIconHeight()) / 2);
+            } else if ((menuItem instanceof JCheckBoxMenuItem || menuItem instanceof JRadioButtonMenuItem) && menuItem.isSelected()) {
+                paintCheckMark(g, textColor, menuItem instanceof JRadioButtonMenuItem, ICON_GAP, top + (height - iconAreaSize) / 2, iconAreaSize);
+            }
+
+            int baseline = top + (height - textMetrics.getHeight()) / 2 + textMetrics.getAscent();
+            String text = menuItem.getText();
+            if (text != null) {
+                g.setColor(textColor);
+                g.setFont(getTextFont());
+                BasicGraphicsUtils.drawStringUnderlineCharAt(g, text, menuItem.getDisplayedMnemonicIndex(), iconColumnWidth, baseline);
+            }
+
+            String acceleratorText = getAcceleratorText(menuItem);
+            if (acceleratorText != null) {
+                if (enabled && !selected && acceleratorForeground != null) {
+                    g.setColor(acceleratorForeground);
+                }
+                g.setFont(getAcceleratorFont());
+                g.drawString(acceleratorText, width - RIGHT_GAP - acceleratorMetrics.stringWidth(acceleratorText), baseline);
+            }
+        }
+
+        private void paintCheckMark(Graphics2D g, Color color, boolean radio, int x, int y, int size) {
+            g.setColor(color);
+            Object antialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            if (radio) {
+                int dot = size / 3;
+                g.fillOval(x + (size - dot) / 2, y + (size - dot) / 2, dot, dot);
+            } else {
+                int[] xPoints = {x + size / 4, x + size * 5 / 12, x + size * 3 / 4};
+                int[] yPoints = {y + size / 2, y + size * 2 / 3, y + size / 3};
+                g.drawPolyline(xPoints, yPoints, 3);
+            }
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+        }
+
+        @Nullable
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            int index = getEntryIndexAt(event.getY());
+            return index >= 0 ? ((JComponent) entries.get(index)).getToolTipText() : null;
+        }
+
+        private int getEntryIndexAt(int y) {
+            ensureLayout();
+            for (int i = 0; i < entries.size(); i++) {
+                if (y >= rowPositions[i] && y < rowPositions[i + 1]) {
+                    return isSelectable(entries.get(i)) ? i : -1;
+                }
+            }
+            return -1;
+        }
+
+        private void selectAt(int y) {
+            select(getEntryIndexAt(y));
+        }
+
+        void selectNext(int fromIndex, int step) {
+            int count = entries.size();
+            if (count == 0) {
+                return;
+            }
+
+            int index = fromIndex;
+            for (int i = 0; i < count; i++) {
+                index = Math.floorMod(index + step, count);
+                if (isSelectable(entries.get(index))) {
+                    select(index);
+                    return;
+                }
+            }
+        }
+
+        void select(int index) {
+            if (index == selectedIndex) {
+                return;
+            }
+
+            Component oldEntry = selectedIndex >= 0 && selectedIndex < entries.size() ? entries.get(selectedIndex) : null;
+            Component newEntry = index >= 0 ? entries.get(index) : null;
+            if (oldEntry instanceof JMenuItem) {
+                // Armed state is reported to accessibility by menu item
+                ((JMenuItem) oldEntry).setArmed(false);
+                repaintEntry(selectedIndex);
+            }
+            selectedIndex = index;
+            if (newEntry instanceof JMenuItem) {
+                ((JMenuItem) newEntry).setArmed(true);
+                repaintEntry(index);
+            }
+
+            if (accessibleContext != null) {
+                accessibleContext.firePropertyChange(AccessibleContext.ACCESSIBLE_ACTIVE_DESCENDANT_PROPERTY, oldEntry, newEntry);
+            }
+        }
+
+        private void repaintEntry(int index) {
+            if (layoutValid && index + 1 < rowPositions.length) {
+                repaint(0, rowPositions[index], getWidth(), rowPositions[index + 1] - rowPositions[index]);
+            }
+        }
+
+        @Override
+        public AccessibleContext getAccessibleContext() {
+            if (accessibleContext == null) {
+                accessibleContext = new AccessibleEntriesPanel();
+            }
+            return accessibleContext;
+        }
+
+        /**
+         * Exposes menu items as accessible children.
+         */
+        private class AccessibleEntriesPanel extends AccessibleJPanel {
+
+            @Override
+            public AccessibleRole getAccessibleRole() {
+                return AccessibleRole.PANEL;
+            }
+
+            @Override
+            public int getAccessibleChildrenCount() {
+                return entries.size();
+            }
+
+            @Nullable
+            @Override
+            public Accessible getAccessibleChild(int index) {
+                if (index < 0 || index >= entries.size()) {
+                    return null;
+                }
+
+                Component entry = entries.get(index);
+                if (!(entry instanceof Accessible)) {
+                    return null;
+                }
+
+                AccessibleContext entryContext = entry.getAccessibleContext();
+                if (entryContext != null) {
+                    entryContext.setAccessibleParent(EntriesPanel.this);
+                }
+                return (Accessible) entry;
+            }
+        }
+    }
+
+    @Nullable
+    private static String getAcceleratorText(JMenuItem menuItem) {
+        KeyStroke accelerator = menuItem.getAccelerator();
+        if (accelerator == null) {
+            return null;
+        }
+
+        String modifiersText = InputEvent.getModifiersExText(accelerator.getModifiers());
+        String keyText = KeyEvent.getKeyText(accelerator.getKeyCode());
+        return modifiersText.isEmpty() ? keyText : modifiersText + "+" + keyText;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.trace;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Binary trace format of mouse and key events.
+ * <p>
+ * Trace starts with magic number and format version followed by records.
+ * Each record starts with record type byte and event identifier, time delta
+ * to previous event and extended modifiers. Mouse records continue with
+ * position in root component coordinates, click count, button and popup
+ * trigger flag. Key records continue with key code, key char and key
+ * location. Integer values are stored as variable length quantities.
+ */
+@NullMarked
+public final class PopupEventTrace {
+
+    public static final int MAGIC = 0x50455452;
+    public static final int VERSION = 1;
+
+    static final int MOUSE_RECORD = 1;
+    static final int KEY_RECORD = 2;
+
+    private PopupEventTrace() {
+    }
+}
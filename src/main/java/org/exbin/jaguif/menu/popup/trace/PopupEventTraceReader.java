@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.trace;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Reader of mouse and key events from binary trace.
+ * <p>
+ * Events are recreated with given source component, mouse positions are
+ * relative to it.
+ *
+ * @see PopupEventTrace
+ */
+@NullMarked
+public final class PopupEventTraceReader implements Closeable {
+
+    private final DataInputStream input;
+    private long lastWhen = 0;
+
+    public PopupEventTraceReader(InputStream inputStream) throws IOException {
+        input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != PopupEventTrace.MAGIC) {
+            throw new IOException("Not a popup event trace");
+        }
+        int version = input.readUnsignedByte();
+        if (version != PopupEventTrace.VERSION) {
+            throw new IOException("Unsupported popup event trace version: " + version);
+        }
+    }
+
+    /**
+     * Reads all remaining events.
+     *
+     * @param source source component of events
+     * @return list of events
+     * @throws IOException if reading failed
+     */
+    public List<AWTEvent> readAll(Component source) throws IOException {
+        List<AWTEvent> events = new ArrayList<>();
+        AWTEvent event;
+        while ((event = read(source)) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * Reads next event.
+     *
+     * @param source source component of event
+     * @return event or null at the end of trace
+     * @throws IOException if reading failed
+     */
+    @Nullable
+    public AWTEvent read(Component source) throws IOException {
+        int recordType = input.read();
+        if (recordType < 0) {
+            return null;
+        }
+
+        int id = readVarInt();
+        long when = lastWhen + readSignedVarLong();
+        lastWhen = when;
+        int modifiers = readVarInt();
+        switch (recordType) {
+            case PopupEventTrace.MOUSE_RECORD: {
+                int x = readSignedVarInt();
+                int y = readSignedVarInt();
+                int clickCount = readVarInt();
+                int button = input.readUnsignedByte();
+                boolean popupTrigger = input.readBoolean();
+                return new MouseEvent(source, id, when, modifiers, x, y, x, y, clickCount, popupTrigger, button);
+            }
+            case PopupEventTrace.KEY_RECORD: {
+                int keyCode = readVarInt();
+                char keyChar = (char) readVarInt();
+                int keyLocation = input.readUnsignedByte();
+                return new KeyEvent(source, id, when, modifiers, keyCode, keyChar, keyLocation);
+            }
+            default:
+                throw new IOException("Invalid popup event trace record type: " + recordType);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int data = input.readUnsignedByte();
+            value |= (data & 0x7f) << shift;
+            if ((data & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable length value");
+    }
+
+    private long readSignedVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int data = input.readUnsignedByte();
+            value |= (long) (data & 0x7f) << shift;
+            if ((data & 0x80) == 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        throw new IOException("Invalid variable length value");
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.menu.popup.trace;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Writer of mouse and key events to binary trace.
+ *
+ * @see PopupEventTrace
+ */
+@NullMarked
+public final class PopupEventTraceWriter implements Closeable, Flushable {
+
+    private final DataOutputStream output;
+    private long lastWhen = 0;
+    private int eventsCount = 0;
+
+    public PopupEventTraceWriter(OutputStream outputStream) throws IOException {
+        output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(PopupEventTrace.MAGIC);
+        output.writeByte(PopupEventTrace.VERSION);
+    }
+
+    /**
+     * Writes event to trace if it is mouse or key event.
+     *
+     * @param event AWT event
+     * @return true if event was written
+     * @throws IOException if writing failed
+     */
+    public boolean write(AWTEvent event) throws IOException {
+        if (event instanceof MouseEvent && !(event instanceof MouseWheelEvent)) {
+            MouseEvent mouseEvent = (MouseEvent) event;
+            writeHeader(PopupEventTrace.MOUSE_RECORD, mouseEvent.getID(), mouseEvent.getWhen(), mouseEvent.getModifiersEx());
+            int x = mouseEvent.getX();
+            int y = mouseEvent.getY();
+            // Position is stored relative to root component
+            for (Component component = mouseEvent.getComponent(); component != null && component.getParent() != null; component = component.getParent()) {
+                x += component.getX();
+                y += component.getY();
+            }
+            writeSignedVarInt(x);
+            writeSignedVarInt(y);
+            writeVarInt(mouseEvent.getClickCount());
+            output.writeByte(mouseEvent.getButton());
+            output.writeBoolean(mouseEvent.isPopupTrigger());
+        } else if (event instanceof KeyEvent) {
+            KeyEvent keyEvent = (KeyEvent) event;
+            writeHeader(PopupEventTrace.KEY_RECORD, keyEvent.getID(), keyEvent.getWhen(), keyEvent.getModifiersEx());
+            writeVarInt(keyEvent.getKeyCode());
+            writeVarInt(keyEvent.getKeyChar());
+            output.writeByte(keyEvent.getKeyLocation());
+        } else {
+            return false;
+        }
+
+        eventsCount++;
+        return true;
+    }
+
+    public int getEventsCount() {
+        return eventsCount;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    private void writeHeader(int recordType, int id, long when, int modifiers) throws IOException {
+        output.writeByte(recordType);
+        writeVarInt(id);
+        writeSignedVarLong(when - lastWhen);
+        lastWhen = when;
+        writeVarInt(modifiers);
+    }
+
+    private void writeSignedVarInt(int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7f) != 0) {
+            output.writeByte((remaining & 0x7f) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    private void writeSignedVarLong(long value) throws IOException {
+        long remaining = (value << 1) ^ (value >> 63);
+        while ((remaining & ~0x7fL) != 0) {
+            output.writeByte((int) (remaining & 0x7f) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte((int) remaining);
+    }
+}
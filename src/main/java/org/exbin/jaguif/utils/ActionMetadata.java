@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.utils;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.Action;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Resolved action values from resource bundle.
+ * <p>
+ * Metadata are cached per resource class, bundle base name, locale and action
+ * identifier. Icons are shared and loaded on first use.
+ */
+@NullMarked
+public final class ActionMetadata {
+
+    private static final ClassValue<Map<Key, ActionMetadata>> CACHE = new ClassValue<Map<Key, ActionMetadata>>() {
+        @Override
+        protected Map<Key, ActionMetadata> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final String name;
+    @Nullable
+    private final String shortDescription;
+    @Nullable
+    private final LazyImageIcon smallIcon;
+    @Nullable
+    private final LazyImageIcon largeIcon;
+
+    private ActionMetadata(String name, @Nullable String shortDescription, @Nullable LazyImageIcon smallIcon, @Nullable LazyImageIcon largeIcon) {
+        this.name = name;
+        this.shortDescription = shortDescription;
+        this.smallIcon = smallIcon;
+        this.largeIcon = largeIcon;
+    }
+
+    /**
+     * Returns action metadata, resolved metadata are reused when bundle has
+     * base name.
+     *
+     * @param bundle source bundle
+     * @param resourceClass class for resolving of icon resources
+     * @param actionId action identifier and bundle key prefix
+     * @return action metadata
+     */
+    public static ActionMetadata of(ResourceBundle bundle, Class<?> resourceClass, String actionId) {
+        String baseName = bundle.getBaseBundleName();
+        if (baseName == null) {
+            return resolve(bundle, resourceClass, actionId);
+        }
+
+        Key key = new Key(baseName, bundle.getLocale(), actionId);
+        Map<Key, ActionMetadata> classCache = CACHE.get(resourceClass);
+        ActionMetadata metadata = classCache.get(key);
+        if (metadata == null) {
+            metadata = resolve(bundle, resourceClass, actionId);
+            classCache.put(key, metadata);
+        }
+        return metadata;
+    }
+
+    private static ActionMetadata resolve(ResourceBundle bundle, Class<?> resourceClass, String actionId) {
+        String name = bundle.getString(actionId + ActionUtils.ACTION_NAME_POSTFIX);
+        String shortDescription = bundle.containsKey(actionId + ActionUtils.ACTION_SHORT_DESCRIPTION_POSTFIX) ? bundle.getString(actionId + ActionUtils.ACTION_SHORT_DESCRIPTION_POSTFIX) : null;
+        LazyImageIcon smallIcon = resolveIcon(bundle, resourceClass, actionId + ActionUtils.ACTION_SMALL_ICON_POSTFIX);
+        LazyImageIcon largeIcon = resolveIcon(bundle, resourceClass, actionId + ActionUtils.ACTION_SMALL_LARGE_POSTFIX);
+        return new ActionMetadata(name, shortDescription, smallIcon, largeIcon);
+    }
+
+    @Nullable
+    private static LazyImageIcon resolveIcon(ResourceBundle bundle, Class<?> resourceClass, String key) {
+        if (!bundle.containsKey(key)) {
+            return null;
+        }
+
+        URL iconUrl = resourceClass.getResource(bundle.getString(key));
+        if (iconUrl == null) {
+            throw new IllegalArgumentException("Missing icon resource for key " + key);
+        }
+        return new LazyImageIcon(iconUrl);
+    }
+
+    /**
+     * Sets action values.
+     *
+     * @param action modified action
+     * @param actionId action identifier
+     */
+    public void apply(Action action, String actionId) {
+        action.putValue(Action.NAME, name);
+        action.putValue(ActionUtils.ACTION_ID, actionId);
+        if (shortDescription != null) {
+            action.putValue(Action.SHORT_DESCRIPTION, shortDescription);
+        }
+        if (smallIcon != null) {
+            action.putValue(Action.SMALL_ICON, smallIcon);
+        }
+        if (largeIcon != null) {
+            action.putValue(Action.LARGE_ICON_KEY, largeIcon);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public String getShortDescription() {
+        return shortDescription;
+    }
+
+    @Nullable
+    public LazyImageIcon getSmallIcon() {
+        return smallIcon;
+    }
+
+    @Nullable
+    public LazyImageIcon getLargeIcon() {
+        return largeIcon;
+    }
+
+    @NullMarked
+    private static final class Key {
+
+        private final String baseName;
+        private final Locale locale;
+        private final String actionId;
+        private final int hashCode;
+
+        public Key(String baseName, Locale locale, String actionId) {
+            this.baseName = baseName;
+            this.locale = locale;
+            this.actionId = actionId;
+            hashCode = Objects.hash(baseName, locale, actionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return baseName.equals(other.baseName) && locale.equals(other.locale) && actionId.equals(other.actionId);
+        }
+    }
+}
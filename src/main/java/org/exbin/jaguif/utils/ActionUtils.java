@@ -23,6 +23,9 @@ import javax.swing.ButtonGroup;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenuItem;
 import javax.swing.JRadioButtonMenuItem;
+import javax.swing.UIManager;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
 import javax.swing.text.JTextComponent;
 import java.awt.AWTEvent;
 import java.awt.EventQueue;
@@ -67,6 +70,8 @@ public class ActionUtils {
     public static final String ACTION_SMALL_LARGE_POSTFIX = ".largeIcon";
     public static final String CYCLE_POPUP_MENU = "cyclePopupMenu";
 
+    private static final String SWING_TEXT_PACKAGE_PREFIX = "javax.swing.text.";
+
     private ActionUtils() {
     }
 
@@ -83,6 +88,8 @@ public class ActionUtils {
 
     /**
      * Sets action values according to values specified by resource bundle.
+     * <p>
+     * Resolved values are cached, see {@link ActionMetadata}.
      *
      * @param action        modified action
      * @param bundle        source bundle
@@ -90,19 +97,8 @@ public class ActionUtils {
      * @param actionId      action identifier and bundle key prefix
      */
     public static void initAction(Action action, ResourceBundle bundle, Class<?> resourceClass, String actionId) {
-        action.putValue(Action.NAME, bundle.getString(actionId + ACTION_NAME_POSTFIX));
-        action.putValue(ACTION_ID, actionId);
-
         // TODO keystroke from string with meta mask translation
-        if (bundle.containsKey(actionId + ACTION_SHORT_DESCRIPTION_POSTFIX)) {
-            action.putValue(Action.SHORT_DESCRIPTION, bundle.getString(actionId + ACTION_SHORT_DESCRIPTION_POSTFIX));
-        }
-        if (bundle.containsKey(actionId + ACTION_SMALL_ICON_POSTFIX)) {
-            action.putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(resourceClass.getResource(bundle.getString(actionId + ACTION_SMALL_ICON_POSTFIX))));
-        }
-        if (bundle.containsKey(actionId + ACTION_SMALL_LARGE_POSTFIX)) {
-            action.putValue(Action.LARGE_ICON_KEY, new javax.swing.ImageIcon(resourceClass.getResource(bundle.getString(actionId + ACTION_SMALL_LARGE_POSTFIX))));
-        }
+        ActionMetadata.of(bundle, resourceClass, actionId).apply(action, actionId);
     }
 
     /**
@@ -201,4 +197,35 @@ public class ActionUtils {
         ActionEvent actionEvent = new ActionEvent(textComponent, ActionEvent.ACTION_PERFORMED, actionName, eventTime, eventMods);
         textActionMap.get(actionName).actionPerformed(actionEvent);
     }
+
+    /**
+     * Deletes selected text of text component.
+     * <p>
+     * If editor kit uses standard delete action, selection is removed directly
+     * from document as single undoable edit. Otherwise and for empty selection
+     * deleteNextCharAction of editor kit is invoked.
+     *
+     * @param textComponent component
+     */
+    public static void deleteSelection(JTextComponent textComponent) {
+        int dot = textComponent.getCaret().getDot();
+        int mark = textComponent.getCaret().getMark();
+        ActionMap textActionMap = textComponent.getActionMap().getParent();
+        Action deleteAction = textActionMap == null ? null : textActionMap.get(DefaultEditorKit.deleteNextCharAction);
+        if (dot == mark || deleteAction == null || !deleteAction.getClass().getName().startsWith(SWING_TEXT_PACKAGE_PREFIX)) {
+            invokeTextAction(textComponent, DefaultEditorKit.deleteNextCharAction);
+            return;
+        }
+
+        if (!textComponent.isEditable()) {
+            UIManager.getLookAndFeel().provideErrorFeedback(textComponent);
+            return;
+        }
+
+        try {
+            textComponent.getDocument().remove(Math.min(dot, mark), Math.abs(dot - mark));
+        } catch (BadLocationException ex) {
+            UIManager.getLookAndFeel().provideErrorFeedback(textComponent);
+        }
+    }
 }
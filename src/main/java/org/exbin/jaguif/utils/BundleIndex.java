@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.utils;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Index of resource bundles compiled at build time.
+ * <p>
+ * Implementation is generated by generateBundleIndex build task.
+ */
+@NullMarked
+interface BundleIndex {
+
+    /**
+     * Name of generated implementation class.
+     */
+    String IMPLEMENTATION_CLASS = "org.exbin.jaguif.utils.GeneratedBundleIndex";
+
+    /**
+     * Returns entries of bundle.
+     *
+     * @param bundleName bundle name in format of
+     * {@link java.util.ResourceBundle.Control#toBundleName(String, java.util.Locale)}
+     * @return keys and values alternating, sorted by key or null if bundle is
+     * not indexed
+     */
+    @Nullable
+    String[] getEntries(String bundleName);
+}
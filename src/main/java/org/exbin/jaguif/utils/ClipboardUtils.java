@@ -20,10 +20,24 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.ClipboardOwner;
 import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.FlavorListener;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.JPasswordField;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.exbin.jaguif.action.api.clipboard.ClipboardStateListener;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Clipboard utility methods
@@ -31,7 +45,23 @@ import org.jspecify.annotations.NullMarked;
 @NullMarked
 public class ClipboardUtils {
 
+    /**
+     * Minimal length of text selection copied to clipboard lazily.
+     */
+    public static final int LAZY_COPY_THRESHOLD = 65536;
+
     private static Clipboard clipboard = null;
+    private static volatile boolean streamingPasteEnabled = false;
+    private static final ClipboardWriter clipboardWriter = new ClipboardWriter();
+
+    private static final List<ClipboardStateListener> clipboardStateListeners = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean clipboardStateRefreshPending = new AtomicBoolean();
+    @Nullable
+    private static FlavorListener clipboardFlavorListener = null;
+    @Nullable
+    private static ExecutorService clipboardStateExecutor = null;
+    private static volatile DataFlavor @Nullable [] availableFlavors = null;
+    private static volatile boolean textFlavorAvailable = true;
 
     private ClipboardUtils() {
     }
@@ -53,9 +83,236 @@ public class ClipboardUtils {
         return clipboard;
     }
 
-    public static void pasteImage(Image image) {
+    /**
+     * Sets contents of shared clipboard without blocking.
+     *
+     * @param contents contents
+     * @return completion future
+     * @see #setContents(java.awt.datatransfer.Transferable,
+     * java.awt.datatransfer.ClipboardOwner)
+     */
+    public static CompletableFuture<Boolean> setContents(Transferable contents) {
+        return setContents(contents, null);
+    }
+
+    /**
+     * Sets contents of shared clipboard without blocking.
+     * <p>
+     * Contents are set in background thread, write which was not started yet
+     * is replaced by newer write. Contents of in-memory clipboard are set
+     * synchronously.
+     *
+     * @param contents contents
+     * @param owner owner of contents or null
+     * @return future completed with true when contents were set, with false
+     * when write was superseded by newer write or exceptionally with
+     * {@link IllegalStateException} when clipboard is not available
+     */
+    public static CompletableFuture<Boolean> setContents(Transferable contents, @Nullable ClipboardOwner owner) {
+        return clipboardWriter.setContents(getClipboard(), contents, owner);
+    }
+
+    /**
+     * Returns whether contents last set using
+     * {@link #setContents(java.awt.datatransfer.Transferable)} are still owned.
+     *
+     * @return true if clipboard ownership was not lost
+     */
+    public static boolean isClipboardOwner() {
+        return clipboardWriter.isOwner();
+    }
+
+    /**
+     * Copies selected text of text component to clipboard.
+     * <p>
+     * Large selection of plain document is placed to clipboard as
+     * {@link DocumentTextTransferable} without copying its text, otherwise
+     * component's transfer handler is used.
+     *
+     * @param component text component
+     */
+    public static void copyText(JTextComponent component) {
+        int selectionStart = component.getSelectionStart();
+        int selectionLength = component.getSelectionEnd() - selectionStart;
+        Document document = component.getDocument();
+        if (selectionLength < LAZY_COPY_THRESHOLD || component instanceof JPasswordField || !DocumentTextTransferable.isSupported(document)) {
+            component.copy();
+            return;
+        }
+
+        DocumentTextTransferable transferable = DocumentTextTransferable.create(document, selectionStart, selectionLength);
+        setContents(transferable, transferable).whenComplete((written, ex) -> {
+            if (written == null || !written) {
+                SwingUtilities.invokeLater(() -> {
+                    transferable.release();
+                    if (ex != null) {
+                        // Clipboard is not available
+                        UIManager.getLookAndFeel().provideErrorFeedback(component);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Pastes clipboard text to text component.
+     * <p>
+     * If streaming paste is enabled, text is pasted using
+     * {@link StreamingTextPaste}, otherwise component's transfer handler is
+     * used.
+     *
+     * @param component text component
+     */
+    public static void pasteText(JTextComponent component) {
+        if (streamingPasteEnabled) {
+            StreamingTextPaste.paste(component);
+        } else {
+            component.paste();
+        }
+    }
+
+    public static boolean isStreamingPasteEnabled() {
+        return streamingPasteEnabled;
+    }
+
+    /**
+     * Sets whether clipboard text should be pasted in chunks without blocking
+     * event dispatch thread.
+     *
+     * @param enabled true to enable streaming paste
+     */
+    public static void setStreamingPasteEnabled(boolean enabled) {
+        streamingPasteEnabled = enabled;
+    }
+
+    /**
+     * Starts tracking of clipboard state.
+     * <p>
+     * Available data flavors are retrieved in background thread whenever
+     * clipboard contents change and cached, so clipboard state checks do not
+     * query clipboard owner on event dispatch thread.
+     */
+    public static synchronized void startClipboardStateTracking() {
+        if (clipboardFlavorListener != null) {
+            return;
+        }
+
+        clipboardStateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Clipboard state");
+            thread.setDaemon(true);
+            return thread;
+        });
+        clipboardStateRefreshPending.set(false);
+        clipboardFlavorListener = event -> requestClipboardStateRefresh();
+        getClipboard().addFlavorListener(clipboardFlavorListener);
+        requestClipboardStateRefresh();
+    }
+
+    /**
+     * Stops tracking of clipboard state and drops cached clipboard state.
+     */
+    public static synchronized void stopClipboardStateTracking() {
+        if (clipboardFlavorListener == null) {
+            return;
+        }
+
+        getClipboard().removeFlavorListener(clipboardFlavorListener);
+        clipboardFlavorListener = null;
+        clipboardStateExecutor.shutdownNow();
+        clipboardStateExecutor = null;
+        availableFlavors = null;
+        textFlavorAvailable = true;
+        fireClipboardStateChanged();
+    }
+
+    public static synchronized boolean isClipboardStateTracking() {
+        return clipboardFlavorListener != null;
+    }
+
+    /**
+     * Returns whether clipboard contains text according to cached clipboard
+     * state.
+     * <p>
+     * If clipboard state is not tracked or not known yet, true is returned.
+     *
+     * @return true if text might be pasted from clipboard
+     */
+    public static boolean isClipboardTextAvailable() {
+        return textFlavorAvailable;
+    }
+
+    /**
+     * Returns cached data flavors available in clipboard.
+     *
+     * @return copy of available data flavors or null if clipboard state is not
+     * known
+     */
+    public static DataFlavor @Nullable [] getAvailableFlavors() {
+        DataFlavor[] flavors = availableFlavors;
+        return flavors == null ? null : flavors.clone();
+    }
+
+    /**
+     * Adds clipboard state listener.
+     * <p>
+     * Listeners are notified on event dispatch thread when cached clipboard
+     * state changes.
+     *
+     * @param listener clipboard state listener
+     */
+    public static void addClipboardStateListener(ClipboardStateListener listener) {
+        clipboardStateListeners.add(listener);
+    }
+
+    public static void removeClipboardStateListener(ClipboardStateListener listener) {
+        clipboardStateListeners.remove(listener);
+    }
+
+    private static synchronized void requestClipboardStateRefresh() {
+        ExecutorService executor = clipboardStateExecutor;
+        // Flavor changes received before refresh started are coalesced
+        if (executor != null && clipboardStateRefreshPending.compareAndSet(false, true)) {
+            executor.execute(() -> refreshClipboardState(executor));
+        }
+    }
+
+    private static void refreshClipboardState(ExecutorService executor) {
+        clipboardStateRefreshPending.set(false);
+        DataFlavor[] flavors;
+        try {
+            flavors = getClipboard().getAvailableDataFlavors();
+        } catch (IllegalStateException ex) {
+            // Clipboard is not available
+            flavors = null;
+        }
+        boolean textAvailable = flavors == null || DataFlavor.selectBestTextFlavor(flavors) != null;
+
+        synchronized (ClipboardUtils.class) {
+            if (clipboardStateExecutor != executor) {
+                // Tracking was stopped meanwhile
+                return;
+            }
+            availableFlavors = flavors;
+            textFlavorAvailable = textAvailable;
+        }
+        fireClipboardStateChanged();
+    }
+
+    private static void fireClipboardStateChanged() {
+        if (clipboardStateListeners.isEmpty()) {
+            return;
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            for (ClipboardStateListener listener : clipboardStateListeners) {
+                listener.stateChanged();
+            }
+        });
+    }
+
+    public static CompletableFuture<Boolean> pasteImage(Image image) {
         TransferableImage trans = new TransferableImage(image);
-        ClipboardUtils.getClipboard().setContents(trans, trans);
+        return setContents(trans, trans);
     }
 
     @NullMarked
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.utils;
+
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.Transferable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Writer of clipboard contents in background thread.
+ * <p>
+ * Writing to system clipboard might block until clipboard manager responds,
+ * so contents are set in single background thread. Pending write is replaced
+ * by newer write, superseded write completes with false. Plain in-memory
+ * clipboard is written synchronously.
+ */
+@NullMarked
+final class ClipboardWriter {
+
+    private static final long IDLE_TIMEOUT_SECONDS = 30;
+
+    private final AtomicReference<PendingWrite> pendingWrite = new AtomicReference<>();
+    private final AtomicReference<Transferable> ownedContents = new AtomicReference<>();
+    @Nullable
+    private ThreadPoolExecutor executor = null;
+
+    ClipboardWriter() {
+    }
+
+    /**
+     * Sets clipboard contents.
+     *
+     * @param clipboard clipboard
+     * @param contents contents
+     * @param owner owner of contents or null
+     * @return future completed with true when contents were set, with false
+     * when write was superseded by newer write or exceptionally when clipboard
+     * is not available
+     */
+    CompletableFuture<Boolean> setContents(Clipboard clipboard, Transferable contents, @Nullable ClipboardOwner owner) {
+        PendingWrite write = new PendingWrite(clipboard, contents, owner);
+        if (clipboard.getClass() == Clipboard.class) {
+            // In-memory clipboard cannot block
+            PendingWrite previous = pendingWrite.getAndSet(null);
+            if (previous != null) {
+                previous.future.complete(false);
+            }
+            write(write);
+            return write.future;
+        }
+
+        PendingWrite previous = pendingWrite.getAndSet(write);
+        if (previous != null) {
+            // Previous write was not started yet and is already scheduled
+            previous.future.complete(false);
+        } else {
+            getExecutor().execute(this::writePending);
+        }
+
+        return write.future;
+    }
+
+    /**
+     * Returns whether last contents set by this writer are still owned.
+     *
+     * @return true if clipboard ownership was not lost
+     */
+    boolean isOwner() {
+        return ownedContents.get() != null;
+    }
+
+    private void writePending() {
+        PendingWrite write = pendingWrite.getAndSet(null);
+        if (write != null) {
+            write(write);
+        }
+    }
+
+    private void write(PendingWrite write) {
+        ownedContents.set(write.contents);
+        try {
+            write.clipboard.setContents(write.contents, write);
+        } catch (IllegalStateException ex) {
+            ownedContents.compareAndSet(write.contents, null);
+            write.future.completeExceptionally(ex);
+            return;
+        }
+        write.future.complete(true);
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(1, 1, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "Clipboard writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    @NullMarked
+    private final class PendingWrite implements ClipboardOwner {
+
+        private final Clipboard clipboard;
+        private final Transferable contents;
+        @Nullable
+        private final ClipboardOwner owner;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        PendingWrite(Clipboard clipboard, Transferable contents, @Nullable ClipboardOwner owner) {
+            this.clipboard = clipboard;
+            this.contents = contents;
+            this.owner = owner;
+        }
+
+        @Override
+        public void lostOwnership(Clipboard clipboard, Transferable contents) {
+            ownedContents.compareAndSet(this.contents, null);
+            if (owner != null) {
+                owner.lostOwnership(clipboard, contents);
+            }
+        }
+    }
+}
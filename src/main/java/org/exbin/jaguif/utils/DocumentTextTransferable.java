@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.utils;
+
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.Segment;
+import javax.swing.text.StyledDocument;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Transferable providing text of document range on demand.
+ * <p>
+ * Only bounds of the range are kept. Text is read from document in chunks
+ * when clipboard is read. Before document is modified inside the range, text
+ * of the range is materialized, modifications outside of the range only move
+ * its bounds. Modifications bypassing document filter, such as undo or redo,
+ * are followed from document events. If such modification overlaps the range,
+ * text is already lost and data is reported as no longer available.
+ */
+@NullMarked
+public final class DocumentTextTransferable implements Transferable, ClipboardOwner {
+
+    public static final DataFlavor READER_FLAVOR = createFlavor("text/plain;charset=unicode;class=java.io.Reader");
+    public static final DataFlavor INPUT_STREAM_FLAVOR = createFlavor("text/plain;charset=UTF-8;class=java.io.InputStream");
+    private static final DataFlavor[] FLAVORS = {DataFlavor.stringFlavor, READER_FLAVOR, INPUT_STREAM_FLAVOR};
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final ClassValue<Boolean> FILTERED_MODIFICATIONS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return isSwingTextClass(type.getMethod("insertString", int.class, String.class, AttributeSet.class).getDeclaringClass())
+                        && isSwingTextClass(type.getMethod("remove", int.class, int.class).getDeclaringClass())
+                        && isSwingTextClass(type.getMethod("replace", int.class, int.class, String.class, AttributeSet.class).getDeclaringClass());
+            } catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+    };
+
+    private final Object lock = new Object();
+    private final RangeGuard guard = new RangeGuard();
+    @Nullable
+    private AbstractDocument document;
+    private int startOffset;
+    private int endOffset;
+    @Nullable
+    private String text = null;
+    private boolean stale = false;
+
+    private DocumentTextTransferable(AbstractDocument document, int startOffset, int endOffset) {
+        this.document = document;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * Returns whether text of given document can be provided lazily.
+     * <p>
+     * Supported are unstyled documents without document filter, which don't
+     * override modification methods of Swing text package.
+     *
+     * @param document document
+     * @return true if supported
+     */
+    public static boolean isSupported(Document document) {
+        return document instanceof AbstractDocument && !(document instanceof StyledDocument)
+                && ((AbstractDocument) document).getDocumentFilter() == null
+                && FILTERED_MODIFICATIONS.get(document.getClass());
+    }
+
+    /**
+     * Creates transferable for range of document and starts guarding the
+     * range.
+     *
+     * @param document document
+     * @param offset range start offset
+     * @param length range length
+     * @return transferable
+     * @throws IllegalArgumentException if document is not supported or range
+     * is invalid
+     */
+    public static DocumentTextTransferable create(Document document, int offset, int length) {
+        if (!isSupported(document)) {
+            throw new IllegalArgumentException("Unsupported document: " + document.getClass().getName());
+        }
+        if (offset < 0 || length < 0 || offset + length > document.getLength()) {
+            throw new IllegalArgumentException("Invalid range: " + offset + ", " + length);
+        }
+
+        DocumentTextTransferable transferable = new DocumentTextTransferable((AbstractDocument) document, offset, offset + length);
+        transferable.guard.install();
+        return transferable;
+    }
+
+    @Override
+    public DataFlavor[] getTransferDataFlavors() {
+        return FLAVORS.clone();
+    }
+
+    @Override
+    public boolean isDataFlavorSupported(DataFlavor flavor) {
+        for (DataFlavor supportedFlavor : FLAVORS) {
+            if (supportedFlavor.equals(flavor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+        if (DataFlavor.stringFlavor.equals(flavor)) {
+            return getText();
+        } else if (READER_FLAVOR.equals(flavor)) {
+            return new RangeReader();
+        } else if (INPUT_STREAM_FLAVOR.equals(flavor)) {
+            return new EncodingInputStream(new RangeReader());
+        }
+
+        throw new UnsupportedFlavorException(flavor);
+    }
+
+    @Override
+    public void lostOwnership(Clipboard clipboard, Transferable contents) {
+        release();
+    }
+
+    /**
+     * Stops guarding of document range and releases document.
+     * <p>
+     * Data which were not materialized are no longer available.
+     */
+    public void release() {
+        guard.uninstall();
+        synchronized (lock) {
+            document = null;
+        }
+    }
+
+    /**
+     * Returns length of the text.
+     *
+     * @return length in characters
+     */
+    public int getLength() {
+        synchronized (lock) {
+            return text != null ? text.length() : endOffset - startOffset;
+        }
+    }
+
+    /**
+     * Returns whether text of the range was already materialized.
+     *
+     * @return true if text is materialized
+     */
+    public boolean isMaterialized() {
+        synchronized (lock) {
+            return text != null;
+        }
+    }
+
+    private String getText() throws IOException {
+        String[] result = new String[1];
+        BadLocationException[] failure = new BadLocationException[1];
+        AbstractDocument lazyDocument;
+        synchronized (lock) {
+            if (text != null) {
+                return text;
+            }
+            lazyDocument = getLazyDocument();
+        }
+
+        lazyDocument.render(() -> {
+            synchronized (lock) {
+                if (text != null) {
+                    result[0] = text;
+                } else if (!stale && document != null) {
+                    try {
+                        result[0] = lazyDocument.getText(startOffset, endOffset - startOffset);
+                    } catch (BadLocationException ex) {
+                        failure[0] = ex;
+                    }
+                }
+            }
+        });
+
+        if (result[0] == null) {
+            throw new IOException("Document text is no longer available", failure[0]);
+        }
+        return result[0];
+    }
+
+    private AbstractDocument getLazyDocument() throws IOException {
+        AbstractDocument lazyDocument = document;
+        if (stale || lazyDocument == null) {
+            throw new IOException("Document text is no longer available");
+        }
+        return lazyDocument;
+    }
+
+    private void materialize() {
+        // Called by document writer holding document write lock
+        synchronized (lock) {
+            if (text == null && !stale && document != null) {
+                try {
+                    text = document.getText(startOffset, endOffset - startOffset);
+                } catch (BadLocationException ex) {
+                    stale = true;
+                }
+            }
+        }
+        release();
+    }
+
+    private static boolean isSwingTextClass(Class<?> type) {
+        return type.getName().startsWith("javax.swing.text.");
+    }
+
+    private static DataFlavor createFlavor(String mimeType) {
+        try {
+            return new DataFlavor(mimeType);
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Document filter and listener guarding the range.
+     */
+    @NullMarked
+    private class RangeGuard extends DocumentFilter implements DocumentListener {
+
+        private boolean installed = false;
+        private boolean filtering = false;
+
+        void install() {
+            AbstractDocument guardedDocument;
+            synchronized (lock) {
+                guardedDocument = document;
+                if (guardedDocument == null) {
+                    return;
+                }
+                installed = true;
+            }
+
+            guardedDocument.setDocumentFilter(this);
+            guardedDocument.addDocumentListener(this);
+        }
+
+        void uninstall() {
+            AbstractDocument guardedDocument;
+            synchronized (lock) {
+                guardedDocument = document;
+                if (!installed || guardedDocument == null) {
+                    return;
+                }
+                installed = false;
+            }
+
+            if (guardedDocument.getDocumentFilter() == this) {
+                guardedDocument.setDocumentFilter(null);
+            }
+            guardedDocument.removeDocumentListener(this);
+        }
+
+        @Override
+        public void insertString(FilterBypass bypass, int offset, String string, AttributeSet attributes) throws BadLocationException {
+            beforeModification(offset, 0, string == null ? 0 : string.length());
+            filtering = true;
+            try {
+                bypass.insertString(offset, string, attributes);
+            } finally {
+                filtering = false;
+            }
+        }
+
+        @Override
+        public void remove(FilterBypass bypass, int offset, int length) throws BadLocationException {
+            beforeModification(offset, length, 0);
+            filtering = true;
+            try {
+                bypass.remove(offset, length);
+            } finally {
+                filtering = false;
+            }
+        }
+
+        @Override
+        public void replace(FilterBypass bypass, int offset, int length, @Nullable String string, @Nullable AttributeSet attributes) throws BadLocationException {
+            beforeModification(offset, length, string == null ? 0 : string.length());
+            filtering = true;
+            try {
+                bypass.replace(offset, length, string, attributes);
+            } finally {
+                filtering = false;
+            }
+        }
+
+        private void beforeModification(int offset, int removedLength, int insertedLength) {
+            synchronized (lock) {
+                if (!installed) {
+                    return;
+                }
+
+                if (offset + removedLength <= startOffset) {
+                    // Modification before the range only moves it
+                    startOffset += insertedLength - removedLength;
+                    endOffset += insertedLength - removedLength;
+                    return;
+                }
+
+                if (offset >= endOffset || (offset == startOffset && removedLength == 0)) {
+                    return;
+                }
+            }
+
+            materialize();
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent event) {
+            afterUnfilteredModification(event.getOffset(), 0, event.getLength());
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent event) {
+            afterUnfilteredModification(event.getOffset(), event.getLength(), 0);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent event) {
+        }
+
+        /**
+         * Processes modification which bypassed document filter, such as undo
+         * or redo.
+         * <p>
+         * Modification outside of the range only moves its bounds. Text of the
+         * range was already changed by modification overlapping the range, so
+         * range is marked as stale and its data are no longer available.
+         */
+        private void afterUnfilteredModification(int offset, int removedLength, int insertedLength) {
+            if (filtering) {
+                return;
+            }
+
+            synchronized (lock) {
+                if (!installed) {
+                    return;
+                }
+
+                if (offset + removedLength <= startOffset) {
+                    startOffset += insertedLength - removedLength;
+                    endOffset += insertedLength - removedLength;
+                    return;
+                }
+
+                if (offset >= endOffset) {
+                    return;
+                }
+
+                stale = text == null;
+            }
+            release();
+        }
+    }
+
+    /**
+     * Reader of range text reading document in chunks.
+     */
+    @NullMarked
+    private class RangeReader extends Reader {
+
+        private final Segment segment = new Segment();
+        private int position = 0;
+        private boolean closed = false;
+
+        public RangeReader() {
+            segment.setPartialReturn(true);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Reader closed");
+            }
+            if (length == 0) {
+                return 0;
+            }
+
+            int[] result = {0};
+            BadLocationException[] failure = new BadLocationException[1];
+            AbstractDocument lazyDocument;
+            synchronized (lock) {
+                if (text != null) {
+                    return readText(text, buffer, offset, length);
+                }
+                lazyDocument = getLazyDocument();
+            }
+
+            lazyDocument.render(() -> {
+                synchronized (lock) {
+                    if (text != null) {
+                        result[0] = readText(text, buffer, offset, length);
+                    } else if (!stale && document != null) {
+                        int remaining = endOffset - startOffset - position;
+                        if (remaining <= 0) {
+                            result[0] = -1;
+                            return;
+                        }
+
+                        try {
+                            lazyDocument.getText(startOffset + position, Math.min(Math.min(length, remaining), CHUNK_SIZE), segment);
+                            System.arraycopy(segment.array, segment.offset, buffer, offset, segment.count);
+                            position += segment.count;
+                            result[0] = segment.count;
+                        } catch (BadLocationException ex) {
+                            failure[0] = ex;
+                        }
+                    }
+                }
+            });
+
+            if (result[0] == 0) {
+                throw new IOException("Document text is no longer available", failure[0]);
+            }
+            return result[0];
+        }
+
+        private int readText(String rangeText, char[] buffer, int offset, int length) {
+            int remaining = rangeText.length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int count = Math.min(length, remaining);
+            rangeText.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Input stream encoding characters of reader.
+     */
+    @NullMarked
+    private static class EncodingInputStream extends InputStream {
+
+        private final Reader reader;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE * 4);
+        private boolean endOfInput = false;
+        private boolean finished = false;
+
+        public EncodingInputStream(Reader reader) {
+            this.reader = reader;
+            bytes.flip();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+
+            while (!bytes.hasRemaining()) {
+                if (finished) {
+                    return -1;
+                }
+                fill();
+            }
+
+            int count = Math.min(length, bytes.remaining());
+            bytes.get(buffer, offset, count);
+            return count;
+        }
+
+        private void fill() throws IOException {
+            bytes.clear();
+            if (!endOfInput) {
+                int count = reader.read(chars.array(), chars.position(), chars.remaining());
+                if (count < 0) {
+                    endOfInput = true;
+                } else {
+                    chars.position(chars.position() + count);
+                }
+            }
+
+            chars.flip();
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (endOfInput && !result.isOverflow()) {
+                finished = encoder.flush(bytes).isUnderflow();
+            }
+            chars.compact();
+            bytes.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
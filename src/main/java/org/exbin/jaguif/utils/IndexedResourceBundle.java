@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Resource bundle backed by entries of compiled bundle index.
+ * <p>
+ * Keys are looked up using binary search without any resource loading.
+ */
+@NullMarked
+final class IndexedResourceBundle extends ResourceBundle {
+
+    private final String baseName;
+    private final Locale locale;
+    private final String[] keys;
+    private final String[] values;
+
+    IndexedResourceBundle(String baseName, Locale locale, String[] entries, @Nullable ResourceBundle parent) {
+        this.baseName = baseName;
+        this.locale = locale;
+        int count = entries.length / 2;
+        keys = new String[count];
+        values = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = entries[i * 2];
+            values[i] = entries[i * 2 + 1];
+        }
+        if (parent != null) {
+            setParent(parent);
+        }
+    }
+
+    @Nullable
+    @Override
+    protected Object handleGetObject(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        if (Arrays.binarySearch(keys, key) >= 0) {
+            return true;
+        }
+        return parent != null && parent.containsKey(key);
+    }
+
+    @Override
+    protected Set<String> handleKeySet() {
+        return new HashSet<>(Arrays.asList(keys));
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+        Set<String> allKeys = new HashSet<>(Arrays.asList(keys));
+        if (parent != null) {
+            allKeys.addAll(Collections.list(parent.getKeys()));
+        }
+        return Collections.enumeration(allKeys);
+    }
+
+    @Override
+    public String getBaseBundleName() {
+        return baseName;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+}
@@ -18,9 +18,12 @@ package org.exbin.jaguif.utils;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.jspecify.annotations.Nullable;
 import org.jspecify.annotations.NullMarked;
 
@@ -31,6 +34,8 @@ import org.jspecify.annotations.NullMarked;
 public class LanguageUtils {
 
     private static ClassLoader languageClassLoader = null;
+    @Nullable
+    private static final BundleIndex BUNDLE_INDEX = loadBundleIndex();
 
     private LanguageUtils() {
     }
@@ -65,7 +70,12 @@ public class LanguageUtils {
      */
     public static ResourceBundle getResourceBundleByClass(Class<?> targetClass) {
         if (languageClassLoader == null) {
-            return ResourceBundle.getBundle(getResourceBaseNameBundleByClass(targetClass), Locale.getDefault(), targetClass.getClassLoader());
+            String baseName = getResourceBaseNameBundleByClass(targetClass);
+            ResourceBundle indexedBundle = getIndexedBundle(baseName, Locale.getDefault());
+            if (indexedBundle != null) {
+                return indexedBundle;
+            }
+            return ResourceBundle.getBundle(baseName, Locale.getDefault(), targetClass.getClassLoader());
         } else {
             return new LanguageResourceBundle(getResourceBaseNameBundleByClass(targetClass));
         }
@@ -84,6 +94,60 @@ public class LanguageUtils {
         return classNamePath.substring(0, classNamePos + 1) + "resources" + classNamePath.substring(classNamePos);
     }
 
+    /**
+     * Returns resource bundle from compiled bundle index.
+     * <p>
+     * Index is used only if it covers requested locale, so that bundles for
+     * other languages provided by additional resources are not bypassed.
+     *
+     * @param baseName bundle base name
+     * @param locale locale
+     * @return resource bundle or null if not available in index
+     */
+    @Nullable
+    public static ResourceBundle getIndexedBundle(String baseName, Locale locale) {
+        if (BUNDLE_INDEX == null) {
+            return null;
+        }
+
+        String[] rootEntries = BUNDLE_INDEX.getEntries(baseName);
+        if (rootEntries == null) {
+            return null;
+        }
+
+        ResourceBundle.Control control = ResourceBundle.Control.getControl(ResourceBundle.Control.FORMAT_DEFAULT);
+        List<Locale> candidates = control.getCandidateLocales(baseName, locale);
+        ResourceBundle bundle = new IndexedResourceBundle(baseName, Locale.ROOT, rootEntries, null);
+        // Root bundles are in English
+        boolean covered = locale.getLanguage().isEmpty() || Locale.ENGLISH.getLanguage().equals(locale.getLanguage());
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            Locale candidate = candidates.get(i);
+            if (Locale.ROOT.equals(candidate)) {
+                continue;
+            }
+            String[] entries = BUNDLE_INDEX.getEntries(control.toBundleName(baseName, candidate));
+            if (entries != null) {
+                bundle = new IndexedResourceBundle(baseName, candidate, entries, bundle);
+                covered = true;
+            }
+        }
+
+        return covered ? bundle : null;
+    }
+
+    @Nullable
+    private static BundleIndex loadBundleIndex() {
+        try {
+            return (BundleIndex) Class.forName(BundleIndex.IMPLEMENTATION_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException ex) {
+            // Not generated, runtime bundles are used
+            return null;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            Logger.getLogger(LanguageUtils.class.getName()).log(Level.WARNING, "Unable to load bundle index", ex);
+            return null;
+        }
+    }
+
     /**
      * Resource bundle which looks for language resources first and main
      * resources as fallback.
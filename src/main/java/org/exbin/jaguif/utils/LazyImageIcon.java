@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.utils;
+
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import javax.swing.ImageIcon;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Image icon loaded on first use and held softly.
+ * <p>
+ * Extends image icon so that look and feel can derive disabled icon from it.
+ */
+@NullMarked
+public class LazyImageIcon extends ImageIcon {
+
+    private final URL location;
+    @Nullable
+    private transient SoftReference<ImageIcon> iconReference = null;
+    private volatile int width = -1;
+    private volatile int height = -1;
+
+    public LazyImageIcon(URL location) {
+        this.location = location;
+    }
+
+    public URL getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns whether image is currently loaded.
+     *
+     * @return true if image is loaded
+     */
+    public synchronized boolean isLoaded() {
+        return iconReference != null && iconReference.get() != null;
+    }
+
+    private synchronized ImageIcon getLoadedIcon() {
+        ImageIcon icon = iconReference == null ? null : iconReference.get();
+        if (icon == null) {
+            icon = new ImageIcon(location);
+            iconReference = new SoftReference<>(icon);
+            width = icon.getIconWidth();
+            height = icon.getIconHeight();
+        }
+        return icon;
+    }
+
+    @Override
+    public void paintIcon(Component component, Graphics graphics, int x, int y) {
+        getLoadedIcon().paintIcon(component, graphics, x, y);
+    }
+
+    @Override
+    public int getIconWidth() {
+        if (width < 0) {
+            getLoadedIcon();
+        }
+        return width;
+    }
+
+    @Override
+    public int getIconHeight() {
+        if (height < 0) {
+            getLoadedIcon();
+        }
+        return height;
+    }
+
+    @Nullable
+    @Override
+    public Image getImage() {
+        return getLoadedIcon().getImage();
+    }
+
+    @Override
+    public int getImageLoadStatus() {
+        return getLoadedIcon().getImageLoadStatus();
+    }
+
+    @Override
+    public String toString() {
+        return location.toString();
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.jaguif.utils;
+
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.io.Reader;
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.ProgressMonitor;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.event.UndoableEditListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.StyledDocument;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.CompoundEdit;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Paste of clipboard text streamed in chunks.
+ * <p>
+ * Text is read from reader of the clipboard contents in background thread and
+ * inserted to document in short time slices on event dispatch thread. All
+ * modifications are reported to undoable edit listeners as single compound
+ * edit. Progress is shown for long pastes and paste can be cancelled, which
+ * reverts already inserted text. Text fitting into single chunk is inserted
+ * at once as replacement of selection.
+ * <p>
+ * Line separators are converted to {@code \n} and end of line property of
+ * document is set the same way as {@link DefaultEditorKit} reads text.
+ */
+@NullMarked
+public final class StreamingTextPaste {
+
+    public static final int CHUNK_SIZE = 16384;
+    private static final int QUEUED_CHUNKS_LIMIT = 64;
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(StreamingTextPaste.class);
+    private final JTextComponent component;
+    private final AbstractDocument document;
+    private final Transferable contents;
+    private final DataFlavor flavor;
+    private final int knownLength;
+    private final BlockingQueue<String> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS_LIMIT);
+    private final AtomicBoolean sliceScheduled = new AtomicBoolean();
+    private final LineSeparatorNormalizer normalizer = new LineSeparatorNormalizer();
+    private volatile boolean readFinished = false;
+    private volatile boolean cancelled = false;
+    @Nullable
+    private volatile Exception readFailure = null;
+    @Nullable
+    private Thread readerThread;
+
+    private boolean started = false;
+    private boolean finished = false;
+    private boolean inserting = false;
+    private boolean foreignEdit = false;
+    private boolean wasEmpty = false;
+    private int offset;
+    private long pasted = 0;
+    private final CompoundEdit compoundEdit = new CompoundEdit();
+    private UndoableEditListener[] undoableEditListeners = new UndoableEditListener[0];
+    private final UndoableEditListener editCollector = (UndoableEditEvent event) -> compoundEdit.addEdit(event.getEdit());
+    private final DocumentListener foreignEditListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent event) {
+            foreignEdit |= !inserting;
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent event) {
+            foreignEdit |= !inserting;
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent event) {
+        }
+    };
+    @Nullable
+    private ProgressMonitor progressMonitor;
+
+    private StreamingTextPaste(JTextComponent component, Transferable contents, DataFlavor flavor) {
+        this.component = component;
+        this.document = (AbstractDocument) component.getDocument();
+        this.contents = contents;
+        this.flavor = flavor;
+        knownLength = contents instanceof DocumentTextTransferable ? ((DocumentTextTransferable) contents).getLength() : -1;
+    }
+
+    /**
+     * Starts streaming paste of clipboard contents to text component.
+     * <p>
+     * Must be called on event dispatch thread. If component document or
+     * clipboard contents is not supported, component's paste is performed
+     * instead.
+     *
+     * @param component text component
+     */
+    public static void paste(JTextComponent component) {
+        Transferable contents = null;
+        try {
+            contents = ClipboardUtils.getClipboard().getContents(null);
+        } catch (IllegalStateException ex) {
+            // Clipboard is not available
+        }
+        DataFlavor flavor = contents == null ? null : DataFlavor.selectBestTextFlavor(contents.getTransferDataFlavors());
+        if (contents == null || flavor == null || !isSupported(component)) {
+            component.paste();
+            return;
+        }
+
+        new StreamingTextPaste(component, contents, flavor).start();
+    }
+
+    /**
+     * Returns whether text can be pasted to text component in chunks.
+     *
+     * @param component text component
+     * @return true if streaming paste is supported
+     */
+    public static boolean isSupported(JTextComponent component) {
+        return component.isEditable() && component.isEnabled() && component.getDocument() instanceof AbstractDocument
+                && !(component.getDocument() instanceof StyledDocument);
+    }
+
+    private void start() {
+        Thread thread = new Thread(this::readChunks, "Streaming paste");
+        thread.setDaemon(true);
+        readerThread = thread;
+        thread.start();
+    }
+
+    private void readChunks() {
+        try (Reader reader = flavor.getReaderForText(contents)) {
+            char[] buffer = new char[CHUNK_SIZE];
+            while (!cancelled) {
+                int count = 0;
+                while (count < CHUNK_SIZE) {
+                    int read = reader.read(buffer, count, CHUNK_SIZE - count);
+                    if (read < 0) {
+                        break;
+                    }
+                    count += read;
+                }
+
+                boolean end = count < CHUNK_SIZE;
+                String chunk = normalizer.normalize(buffer, count, end);
+                if (!chunk.isEmpty()) {
+                    chunks.put(chunk);
+                }
+                if (end) {
+                    break;
+                }
+                scheduleSlice();
+            }
+        } catch (InterruptedException ex) {
+            // Paste was cancelled
+        } catch (Exception ex) {
+            readFailure = ex;
+        } finally {
+            readFinished = true;
+            scheduleSlice();
+        }
+    }
+
+    private void scheduleSlice() {
+        if (sliceScheduled.compareAndSet(false, true)) {
+            EventQueue.invokeLater(this::runSlice);
+        }
+    }
+
+    private void runSlice() {
+        sliceScheduled.set(false);
+        if (finished) {
+            return;
+        }
+
+        if (!started) {
+            if (readFinished && chunks.size() <= 1) {
+                pasteAtOnce();
+                return;
+            }
+            if (!begin()) {
+                return;
+            }
+        }
+
+        ProgressMonitor monitor = progressMonitor;
+        if (monitor != null && monitor.isCanceled()) {
+            finish(false);
+            return;
+        }
+        if (foreignEdit || !component.isEditable()) {
+            // Keep inserted text, edit made meanwhile is part of compound edit
+            finish(true);
+            return;
+        }
+
+        long deadline = System.nanoTime() + SLICE_NANOS;
+        String chunk;
+        while ((chunk = chunks.poll()) != null) {
+            try {
+                insert(offset, chunk);
+            } catch (BadLocationException ex) {
+                readFailure = ex;
+                break;
+            }
+            offset += chunk.length();
+            pasted += chunk.length();
+            if (System.nanoTime() > deadline) {
+                break;
+            }
+        }
+        updateProgress();
+
+        if (readFailure != null) {
+            Logger.getLogger(StreamingTextPaste.class.getName()).log(Level.WARNING, "Unable to paste clipboard text", readFailure);
+            UIManager.getLookAndFeel().provideErrorFeedback(component);
+            finish(false);
+        } else if (readFinished && chunks.isEmpty()) {
+            finish(true);
+        } else if (!chunks.isEmpty()) {
+            scheduleSlice();
+        }
+    }
+
+    private void pasteAtOnce() {
+        finished = true;
+        Exception failure = readFailure;
+        if (failure != null) {
+            Logger.getLogger(StreamingTextPaste.class.getName()).log(Level.WARNING, "Unable to paste clipboard text", failure);
+            UIManager.getLookAndFeel().provideErrorFeedback(component);
+            return;
+        }
+
+        String chunk = chunks.poll();
+        if (component.isEditable() && component.isEnabled()) {
+            wasEmpty = document.getLength() == component.getSelectionEnd() - component.getSelectionStart();
+            component.replaceSelection(chunk == null ? "" : chunk);
+            updateEndOfLineProperty();
+        }
+    }
+
+    private boolean begin() {
+        started = true;
+        if (!isSupported(component) || component.getDocument() != document) {
+            cancel();
+            finished = true;
+            return false;
+        }
+
+        undoableEditListeners = document.getUndoableEditListeners();
+        for (UndoableEditListener listener : undoableEditListeners) {
+            document.removeUndoableEditListener(listener);
+        }
+        document.addUndoableEditListener(editCollector);
+        document.addDocumentListener(foreignEditListener);
+
+        int selectionStart = component.getSelectionStart();
+        int selectionEnd = component.getSelectionEnd();
+        offset = selectionStart;
+        if (selectionEnd > selectionStart) {
+            try {
+                inserting = true;
+                document.remove(selectionStart, selectionEnd - selectionStart);
+            } catch (BadLocationException ex) {
+                readFailure = ex;
+            } finally {
+                inserting = false;
+            }
+        }
+        wasEmpty = document.getLength() == 0;
+
+        if (!GraphicsEnvironment.isHeadless()) {
+            progressMonitor = new ProgressMonitor(component, resourceBundle.getString("pasteProgress.message"), "", 0, 100);
+        }
+        return true;
+    }
+
+    private void insert(int position, String chunk) throws BadLocationException {
+        inserting = true;
+        try {
+            document.insertString(position, chunk, null);
+        } finally {
+            inserting = false;
+        }
+    }
+
+    private void updateProgress() {
+        ProgressMonitor monitor = progressMonitor;
+        if (monitor == null) {
+            return;
+        }
+
+        // Progress of contents of unknown length is estimated from queued text
+        long total = knownLength >= 0 ? knownLength : pasted + (long) chunks.size() * CHUNK_SIZE + (readFinished ? 0 : CHUNK_SIZE);
+        monitor.setNote(MessageFormat.format(resourceBundle.getString("pasteProgress.note"), pasted));
+        monitor.setProgress(total == 0 ? 100 : (int) Math.min(99, pasted * 100 / total));
+    }
+
+    private void finish(boolean commit) {
+        finished = true;
+        cancel();
+        document.removeDocumentListener(foreignEditListener);
+        compoundEdit.end();
+        if (!commit) {
+            try {
+                inserting = true;
+                compoundEdit.undo();
+            } catch (CannotUndoException ex) {
+                commit = true;
+            } finally {
+                inserting = false;
+            }
+        }
+
+        document.removeUndoableEditListener(editCollector);
+        for (UndoableEditListener listener : undoableEditListeners) {
+            document.addUndoableEditListener(listener);
+        }
+        if (commit) {
+            UndoableEditEvent event = new UndoableEditEvent(document, compoundEdit);
+            for (UndoableEditListener listener : undoableEditListeners) {
+                listener.undoableEditHappened(event);
+            }
+            component.setCaretPosition(Math.min(offset, document.getLength()));
+            if (readFinished) {
+                updateEndOfLineProperty();
+            }
+        }
+
+        ProgressMonitor monitor = progressMonitor;
+        if (monitor != null) {
+            monitor.close();
+        }
+    }
+
+    private void updateEndOfLineProperty() {
+        if (wasEmpty) {
+            document.putProperty(DefaultEditorKit.EndOfLineStringProperty, normalizer.getLineSeparator());
+        }
+    }
+
+    private void cancel() {
+        cancelled = true;
+        chunks.clear();
+        Thread thread = readerThread;
+        if (thread != null && !readFinished) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Converter of {@code \r\n} and {@code \r} line separators to
+     * {@code \n}.
+     * <p>
+     * Carriage return at the end of chunk is carried over to the next chunk.
+     */
+    @NullMarked
+    private static final class LineSeparatorNormalizer {
+
+        private final char[] output = new char[CHUNK_SIZE + 1];
+        private boolean lastWasCR = false;
+        private boolean crlf = false;
+        private boolean cr = false;
+
+        String normalize(char[] buffer, int count, boolean end) {
+            int length = 0;
+            for (int i = 0; i < count; i++) {
+                char character = buffer[i];
+                if (lastWasCR) {
+                    lastWasCR = false;
+                    output[length++] = '\n';
+                    if (character == '\n') {
+                        crlf = true;
+                        continue;
+                    }
+                    cr = true;
+                }
+
+                if (character == '\r') {
+                    lastWasCR = true;
+                } else {
+                    output[length++] = character;
+                }
+            }
+
+            if (end && lastWasCR) {
+                lastWasCR = false;
+                output[length++] = '\n';
+                cr = true;
+            }
+
+            return new String(output, 0, length);
+        }
+
+        String getLineSeparator() {
+            return crlf ? "\r\n" : cr ? "\r" : "\n";
+        }
+    }
+}
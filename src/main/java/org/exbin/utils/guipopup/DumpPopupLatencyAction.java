@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.utils.guipopup;
+
+import java.awt.event.ActionEvent;
+import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.AbstractAction;
+import org.exbin.jaguif.menu.popup.PopupLatency;
+import org.exbin.jaguif.utils.ActionUtils;
+import org.exbin.jaguif.utils.LanguageUtils;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Action to log percentiles of popup handling latencies.
+ */
+@NullMarked
+public class DumpPopupLatencyAction extends AbstractAction {
+
+    public static final String ACTION_ID = "dumpPopupLatency";
+
+    private final ResourceBundle resourceBundle = LanguageUtils.getResourceBundleByClass(DumpPopupLatencyAction.class);
+
+    public DumpPopupLatencyAction() {
+        ActionUtils.initAction(this, resourceBundle, ACTION_ID);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        PopupLatency latency = NetBeansPopupMenu.getInstance().getLatency();
+        if (!latency.isRecording()) {
+            Logger.getLogger(DumpPopupLatencyAction.class.getName()).log(Level.INFO, "Popup latencies are recorded only when self-timing is enabled ({0} preference)", GuiPopupPreferences.KEY_SELF_TIMING);
+        }
+        latency.logReport();
+    }
+}
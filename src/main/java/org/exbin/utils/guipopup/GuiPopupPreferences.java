@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.utils.guipopup;
+
+import java.util.prefs.Preferences;
+import org.exbin.jaguif.menu.popup.ComponentBlacklist;
+import org.exbin.jaguif.menu.popup.PopupTiming;
+import org.jspecify.annotations.NullMarked;
+import org.openide.util.NbPreferences;
+
+/**
+ * Module preferences.
+ */
+@NullMarked
+public class GuiPopupPreferences {
+
+    public static final String KEY_SELF_TIMING = "selfTiming";
+    public static final String KEY_SLOW_STEP_THRESHOLD = "slowStepThreshold";
+    public static final String KEY_MOUSE_POPUP_BLACKLIST = "mousePopupBlacklist";
+    public static final String KEY_HIT_TEST_INDEX = "hitTestIndex";
+    public static final String KEY_TRACE_FILE = "traceFile";
+    public static final String KEY_TEMPLATE_CACHE = "templateCache";
+    public static final String KEY_PREWARM = "prewarm";
+    public static final String KEY_DEFERRED_ITEMS = "deferredItems";
+    public static final String KEY_LIGHTWEIGHT_POPUP = "lightweightPopup";
+    public static final String KEY_STREAMING_PASTE = "streamingPaste";
+    public static final String KEY_CLIPBOARD_STATE_TRACKING = "clipboardStateTracking";
+
+    public static final String DEFAULT_MOUSE_POPUP_BLACKLIST = "org.netbeans.modules.notifications.center.NotificationTable,"
+            + "org.netbeans.modules.git.ui.commit.MessageArea,"
+            + "org.netbeans.modules.team.commons.treelist.TreeList";
+
+    private GuiPopupPreferences() {
+    }
+
+    public static Preferences getPreferences() {
+        return NbPreferences.forModule(GuiPopupPreferences.class);
+    }
+
+    /**
+     * Returns whether popup handling should measure and log its own slow
+     * steps.
+     *
+     * @return true if self-timing is enabled
+     */
+    public static boolean isSelfTiming() {
+        return getPreferences().getBoolean(KEY_SELF_TIMING, false);
+    }
+
+    /**
+     * Returns threshold for logging of slow popup handling steps.
+     *
+     * @return threshold in milliseconds
+     */
+    public static long getSlowStepThreshold() {
+        return getPreferences().getLong(KEY_SLOW_STEP_THRESHOLD, PopupTiming.DEFAULT_SLOW_THRESHOLD_MILLIS);
+    }
+
+    /**
+     * Returns blacklist of components without popup menu on mouse trigger.
+     *
+     * @return component blacklist
+     */
+    public static ComponentBlacklist getMousePopupBlacklist() {
+        return ComponentBlacklist.parse(getPreferences().get(KEY_MOUSE_POPUP_BLACKLIST, DEFAULT_MOUSE_POPUP_BLACKLIST));
+    }
+
+    /**
+     * Returns whether cached hit-test index should be used to find component
+     * under mouse cursor.
+     *
+     * @return true if hit-test index is enabled
+     */
+    public static boolean isHitTestIndex() {
+        return getPreferences().getBoolean(KEY_HIT_TEST_INDEX, false);
+    }
+
+    /**
+     * Returns path of file to record popup event trace to.
+     *
+     * @return file path or empty string if recording is disabled
+     */
+    public static String getTraceFile() {
+        return getPreferences().get(KEY_TRACE_FILE, "");
+    }
+
+    /**
+     * Returns whether popup menus should be reused for the same menu shape.
+     *
+     * @return true if popup menu templates cache is enabled
+     */
+    public static boolean isTemplateCache() {
+        return getPreferences().getBoolean(KEY_TEMPLATE_CACHE, true);
+    }
+
+    /**
+     * Returns whether popup handling should be warmed up in idle time after
+     * startup.
+     *
+     * @return true if warm-up is enabled
+     */
+    public static boolean isPrewarm() {
+        return getPreferences().getBoolean(KEY_PREWARM, true);
+    }
+
+    /**
+     * Returns whether link, image and contributed popup items should be
+     * resolved in background after popup menu is shown.
+     *
+     * @return true if deferred popup items are enabled
+     */
+    public static boolean isDeferredItems() {
+        return getPreferences().getBoolean(KEY_DEFERRED_ITEMS, false);
+    }
+
+    /**
+     * Returns whether popup menu items should be painted by single lightweight
+     * component instead of component per menu item.
+     *
+     * @return true if lightweight popup menu is enabled
+     */
+    public static boolean isLightweightPopup() {
+        return getPreferences().getBoolean(KEY_LIGHTWEIGHT_POPUP, false);
+    }
+
+    /**
+     * Returns whether clipboard text should be pasted in chunks without
+     * blocking user interface.
+     *
+     * @return true if streaming paste is enabled
+     */
+    public static boolean isStreamingPaste() {
+        return getPreferences().getBoolean(KEY_STREAMING_PASTE, false);
+    }
+
+    /**
+     * Returns whether clipboard contents should be tracked in background to
+     * enable paste action only when clipboard contains text.
+     *
+     * @return true if clipboard state tracking is enabled
+     */
+    public static boolean isClipboardStateTracking() {
+        return getPreferences().getBoolean(KEY_CLIPBOARD_STATE_TRACKING, false);
+    }
+}
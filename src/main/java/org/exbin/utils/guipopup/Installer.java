@@ -27,6 +27,14 @@ public class Installer extends ModuleInstall {
     public void restored() {
         WindowManager.getDefault().invokeWhenUIReady(() -> {
             NetBeansPopupMenu.register();
+            if (GuiPopupPreferences.isPrewarm()) {
+                NetBeansPopupMenu.getInstance().schedulePrewarm();
+            }
         });
     }
+
+    @Override
+    public void uninstalled() {
+        NetBeansPopupMenu.unregister();
+    }
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) ExBin Project, https://exbin.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.utils.guipopup;
+
+import java.awt.Component;
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.Icon;
+import org.exbin.jaguif.action.api.clipboard.TextClipboardOperationController;
+import org.exbin.jaguif.menu.popup.PopupActionsState;
+import org.exbin.jaguif.menu.popup.api.PopupItemsContributor;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.ImageUtilities;
+import org.openide.util.Lookup;
+
+/**
+ * Popup menu contributions registered in layer folder
+ * {@value #FOLDER_PATH}.
+ * <p>
+ * Only attributes of instance files are read when folder changes, action is
+ * instantiated on first invocation. Example registration:
+ * <pre>
+ * &lt;folder name="GuiPopup"&gt;
+ *     &lt;folder name="Actions"&gt;
+ *         &lt;file name="org-example-LookupAction.instance"&gt;
+ *             &lt;attr name="displayName" bundlevalue="org.example.Bundle#LookupAction"/&gt;
+ *             &lt;attr name="iconBase" stringvalue="org/example/lookup.png"/&gt;
+ *             &lt;attr name="capabilities" stringvalue="selection"/&gt;
+ *             &lt;attr name="position" intvalue="100"/&gt;
+ *         &lt;/file&gt;
+ *     &lt;/folder&gt;
+ * &lt;/folder&gt;
+ * </pre> Action receives event with invoker component as source.
+ */
+@NullMarked
+public class LayerPopupContributions implements PopupItemsContributor {
+
+    public static final String FOLDER_PATH = "GuiPopup/Actions";
+    public static final String ATTR_DISPLAY_NAME = "displayName";
+    public static final String ATTR_ICON_BASE = "iconBase";
+    public static final String ATTR_CAPABILITIES = "capabilities";
+    public static final String ATTR_INSTANCE_CLASS = "instanceClass";
+    public static final String ATTR_INSTANCE_CREATE = "instanceCreate";
+
+    public static final String CAPABILITY_EDITABLE = "editable";
+    public static final String CAPABILITY_SELECTION = "selection";
+    public static final String CAPABILITY_TEXT = "text";
+    public static final String CAPABILITY_LINK = "link";
+    public static final String CAPABILITY_IMAGE = "image";
+
+    private static final String INSTANCE_EXTENSION = "instance";
+
+    @Nullable
+    private FileObject folder = null;
+    private volatile List<Contribution> contributions = Collections.emptyList();
+    private final FileChangeListener folderListener = new FileChangeAdapter() {
+        @Override
+        public void fileDataCreated(FileEvent event) {
+            reload();
+        }
+
+        @Override
+        public void fileChanged(FileEvent event) {
+            reload();
+        }
+
+        @Override
+        public void fileDeleted(FileEvent event) {
+            reload();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent event) {
+            reload();
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent event) {
+            reload();
+        }
+    };
+
+    /**
+     * Reads contributions and starts listening to changes of layer folder.
+     */
+    public void install() {
+        if (folder != null) {
+            return;
+        }
+
+        folder = FileUtil.getConfigFile(FOLDER_PATH);
+        if (folder != null) {
+            folder.addFileChangeListener(folderListener);
+            reload();
+        }
+    }
+
+    /**
+     * Stops listening to changes of layer folder.
+     */
+    public void uninstall() {
+        if (folder != null) {
+            folder.removeFileChangeListener(folderListener);
+            folder = null;
+        }
+        contributions = Collections.emptyList();
+    }
+
+    /**
+     * Returns contributions ordered by position.
+     *
+     * @return list of contributions
+     */
+    public List<Contribution> getContributions() {
+        return contributions;
+    }
+
+    private void reload() {
+        FileObject currentFolder = folder;
+        if (currentFolder == null) {
+            return;
+        }
+
+        List<Contribution> loaded = new ArrayList<>();
+        for (FileObject file : FileUtil.getOrder(Arrays.asList(currentFolder.getChildren()), false)) {
+            if (file.isData() && INSTANCE_EXTENSION.equals(file.getExt())) {
+                loaded.add(new Contribution(file));
+            }
+        }
+        contributions = Collections.unmodifiableList(loaded);
+    }
+
+    @Override
+    public List<Action> getPopupActions(Component component, TextClipboardOperationController clipboardHandler, PopupActionsState actionsState, @Nullable Point locationOnScreen) {
+        List<Contribution> currentContributions = contributions;
+        if (currentContributions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Action> actions = new ArrayList<>();
+        for (Contribution contribution : currentContributions) {
+            if (contribution.isApplicable(actionsState)) {
+                actions.add(new ContributionAction(contribution, component));
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Metadata of popup contribution with lazily created action.
+     */
+    @NullMarked
+    public static final class Contribution {
+
+        private static final int EDITABLE = 1;
+        private static final int SELECTION = 2;
+        private static final int TEXT = 4;
+        private static final int LINK = 8;
+        private static final int IMAGE = 16;
+
+        private final FileObject file;
+        private final String displayName;
+        @Nullable
+        private final String iconBase;
+        private final int capabilities;
+        @Nullable
+        private volatile Icon icon = null;
+        @Nullable
+        private Action action = null;
+
+        private Contribution(FileObject file) {
+            this.file = file;
+            Object displayNameValue = file.getAttribute(ATTR_DISPLAY_NAME);
+            displayName = displayNameValue instanceof String ? (String) displayNameValue : file.getName();
+            Object iconBaseValue = file.getAttribute(ATTR_ICON_BASE);
+            iconBase = iconBaseValue instanceof String ? (String) iconBaseValue : null;
+            Object capabilitiesValue = file.getAttribute(ATTR_CAPABILITIES);
+            capabilities = capabilitiesValue instanceof String ? parseCapabilities((String) capabilitiesValue) : 0;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Returns icon, which is loaded on first use.
+         *
+         * @return icon or null
+         */
+        @Nullable
+        public Icon getIcon() {
+            if (icon == null && iconBase != null) {
+                icon = ImageUtilities.loadImageIcon(iconBase, false);
+            }
+            return icon;
+        }
+
+        /**
+         * Returns whether contribution applies to popup with given state.
+         *
+         * @param actionsState popup actions state
+         * @return true if all required capabilities are available
+         */
+        public boolean isApplicable(PopupActionsState actionsState) {
+            int available = (actionsState.isEditable() ? EDITABLE : 0)
+                    | (actionsState.hasSelection() ? SELECTION : 0)
+                    | (actionsState.isTextSelected() ? TEXT : 0)
+                    | (actionsState.isLinkSelected() ? LINK : 0)
+                    | (actionsState.isImageSelected() ? IMAGE : 0);
+            return (capabilities & available) == capabilities;
+        }
+
+        /**
+         * Returns action, which is instantiated on first call.
+         *
+         * @return action or null if instantiation failed
+         */
+        @Nullable
+        public synchronized Action getAction() {
+            if (action == null) {
+                try {
+                    Object instance = file.getAttribute(ATTR_INSTANCE_CREATE);
+                    if (instance == null) {
+                        Object instanceClass = file.getAttribute(ATTR_INSTANCE_CLASS);
+                        String className = instanceClass instanceof String ? (String) instanceClass : file.getName().replace('-', '.');
+                        ClassLoader classLoader = Lookup.getDefault().lookup(ClassLoader.class);
+                        instance = Class.forName(className, true, classLoader).getDeclaredConstructor().newInstance();
+                    }
+                    if (instance instanceof Action) {
+                        action = (Action) instance;
+                    } else {
+                        Logger.getLogger(LayerPopupContributions.class.getName()).log(Level.WARNING, "Popup contribution {0} is not an action", file.getPath());
+                    }
+                } catch (ReflectiveOperationException | LinkageError ex) {
+                    Logger.getLogger(LayerPopupContributions.class.getName()).log(Level.WARNING, "Unable to create popup contribution " + file.getPath(), ex);
+                }
+            }
+            return action;
+        }
+
+        private int parseCapabilities(String value) {
+            int result = 0;
+            for (String capability : value.split("[,;\\s]+")) {
+                switch (capability) {
+                    case "":
+                        break;
+                    case CAPABILITY_EDITABLE:
+                        result |= EDITABLE;
+                        break;
+                    case CAPABILITY_SELECTION:
+                        result |= SELECTION;
+                        break;
+                    case CAPABILITY_TEXT:
+                        result |= TEXT;
+                        break;
+                    case CAPABILITY_LINK:
+                        result |= LINK;
+                        break;
+                    case CAPABILITY_IMAGE:
+                        result |= IMAGE;
+                        break;
+                    default:
+                        Logger.getLogger(LayerPopupContributions.class.getName()).log(Level.WARNING, "Unknown capability {0} of popup contribution {1}", new Object[]{capability, file.getPath()});
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Popup menu action delegating to contribution.
+     */
+    @NullMarked
+    private static final class ContributionAction extends AbstractAction {
+
+        private final Contribution contribution;
+        private final Component component;
+
+        public ContributionAction(Contribution contribution, Component component) {
+            super(contribution.getDisplayName());
+            this.contribution = contribution;
+            this.component = component;
+        }
+
+        @Nullable
+        @Override
+        public Object getValue(String key) {
+            if (Action.SMALL_ICON.equals(key)) {
+                return contribution.getIcon();
+            }
+            return super.getValue(key);
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent event) {
+            Action action = contribution.getAction();
+            if (action != null && action.isEnabled()) {
+                action.actionPerformed(new ActionEvent(component, event.getID(), event.getActionCommand(), event.getWhen(), event.getModifiers()));
+            }
+        }
+    }
+}
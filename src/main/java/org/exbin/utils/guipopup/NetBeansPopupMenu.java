@@ -21,36 +21,36 @@ import java.awt.Component;
 import java.awt.Dialog;
 import java.awt.EventQueue;
 import java.awt.Frame;
-import java.awt.KeyboardFocusManager;
 import java.awt.MouseInfo;
 import java.awt.Point;
-import java.awt.Rectangle;
 import java.awt.Robot;
 import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
-import java.util.Arrays;
-import java.util.List;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 import javax.swing.Action;
-import javax.swing.JEditorPane;
-import javax.swing.JList;
-import javax.swing.JTable;
-import javax.swing.JViewport;
-import javax.swing.MenuSelectionManager;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.JTextComponent;
+import org.exbin.jaguif.menu.popup.ComponentBlacklist;
 import org.exbin.jaguif.menu.popup.DefaultPopupMenu;
-import org.exbin.jaguif.menu.popup.handler.EditorPanePopupHandler;
-import org.exbin.jaguif.menu.popup.handler.ListPopupHandler;
-import org.exbin.jaguif.menu.popup.handler.TablePopupHandler;
-import org.exbin.jaguif.menu.popup.handler.TextComponentPopupHandler;
-import org.exbin.jaguif.menu.popup.api.ComponentPopupEventDispatcher;
+import org.exbin.jaguif.menu.popup.EventRegistrationMode;
+import org.exbin.jaguif.menu.popup.PopupEventFilter;
+import org.exbin.jaguif.menu.popup.lightweight.LightweightMenuBuilder;
+import org.exbin.jaguif.utils.ClipboardUtils;
 import org.exbin.jaguif.utils.LanguageUtils;
+import org.exbin.jaguif.utils.UiUtils;
 import org.exbin.jaguif.utils.WindowUtils;
 import org.exbin.utils.guipopup.gui.InspectComponentPanel;
 import org.openide.windows.WindowManager;
@@ -67,14 +67,38 @@ public class NetBeansPopupMenu extends DefaultPopupMenu {
 
     private static NetBeansPopupMenu instance = null;
 
-    private static final List<String> MOUSE_POPUP_COMPONENT_BLACKLIST = Arrays.asList(
-            "org.netbeans.modules.notifications.center.NotificationTable", "org.netbeans.modules.git.ui.commit.MessageArea", "org.netbeans.modules.team.commons.treelist.TreeList"
-    );
+    private static final PopupEventFilter INSPECT_MODE_EVENTS = PopupEventFilter.POPUP_TRIGGER_EVENTS.with(MouseEvent.MOUSE_MOVED);
 
     private boolean registered = false;
     private boolean inspectMode = false;
-    private EventQueue systemEventQueue;
-    private EventQueue overriddenQueue;
+    private EventRegistrationMode registrationMode = EventRegistrationMode.EVENT_QUEUE;
+    private PopupEventQueue overriddenQueue;
+    private AWTEventListener eventListener;
+    private final LayerPopupContributions layerContributions = new LayerPopupContributions();
+    private volatile ComponentBlacklist mousePopupBlacklist = ComponentBlacklist.parse(GuiPopupPreferences.DEFAULT_MOUSE_POPUP_BLACKLIST);
+    private final PreferenceChangeListener preferenceChangeListener = (PreferenceChangeEvent event) -> {
+        if (GuiPopupPreferences.KEY_MOUSE_POPUP_BLACKLIST.equals(event.getKey())) {
+            mousePopupBlacklist = GuiPopupPreferences.getMousePopupBlacklist();
+        } else if (GuiPopupPreferences.KEY_HIT_TEST_INDEX.equals(event.getKey())) {
+            boolean hitTestIndex = GuiPopupPreferences.isHitTestIndex();
+            EventQueue.invokeLater(() -> setHitTestIndexEnabled(hitTestIndex));
+        } else if (GuiPopupPreferences.KEY_DEFERRED_ITEMS.equals(event.getKey())) {
+            setDeferredItemsEnabled(GuiPopupPreferences.isDeferredItems());
+        } else if (GuiPopupPreferences.KEY_LIGHTWEIGHT_POPUP.equals(event.getKey())) {
+            boolean lightweightPopup = GuiPopupPreferences.isLightweightPopup();
+            EventQueue.invokeLater(() -> setLightweightPopup(lightweightPopup));
+        } else if (GuiPopupPreferences.KEY_STREAMING_PASTE.equals(event.getKey())) {
+            ClipboardUtils.setStreamingPasteEnabled(GuiPopupPreferences.isStreamingPaste());
+        } else if (GuiPopupPreferences.KEY_CLIPBOARD_STATE_TRACKING.equals(event.getKey())) {
+            setClipboardStateTracking(GuiPopupPreferences.isClipboardStateTracking());
+        }
+    };
+    private final AWTEventListener inspectEventListener = (AWTEvent event) -> {
+        if (event.getID() == MouseEvent.MOUSE_MOVED && inspectMode) {
+            Toolkit.getDefaultToolkit().removeAWTEventListener(this.inspectEventListener);
+            inspectComponent((MouseEvent) event);
+        }
+    };
 
     private NetBeansPopupMenu() {
     }
@@ -91,10 +115,23 @@ public class NetBeansPopupMenu extends DefaultPopupMenu {
      * Registers default popup menu to AWT.
      */
     public static void register() {
+        register(EventRegistrationMode.EVENT_QUEUE);
+    }
+
+    /**
+     * Registers default popup menu to AWT.
+     *
+     * @param registrationMode registration mode
+     */
+    public static void register(EventRegistrationMode registrationMode) {
         NetBeansPopupMenu defaultPopupMenu = getInstance();
         if (!defaultPopupMenu.registered) {
             defaultPopupMenu.initDefaultPopupMenu();
-            defaultPopupMenu.registerToEventQueue();
+            defaultPopupMenu.applyPreferences();
+            defaultPopupMenu.registerEvents(registrationMode);
+            defaultPopupMenu.latency.registerMBean();
+            defaultPopupMenu.layerContributions.install();
+            defaultPopupMenu.addItemsContributor(defaultPopupMenu.layerContributions);
         }
     }
 
@@ -105,28 +142,147 @@ public class NetBeansPopupMenu extends DefaultPopupMenu {
      * @param resourceClass resource class
      */
     public static void register(ResourceBundle resourceBundle, Class resourceClass) {
+        register(resourceBundle, resourceClass, EventRegistrationMode.EVENT_QUEUE);
+    }
+
+    /**
+     * Registers default popup menu to AWT.
+     *
+     * @param resourceBundle resource bundle
+     * @param resourceClass resource class
+     * @param registrationMode registration mode
+     */
+    public static void register(ResourceBundle resourceBundle, Class resourceClass, EventRegistrationMode registrationMode) {
         NetBeansPopupMenu defaultPopupMenu = getInstance();
         defaultPopupMenu.initDefaultPopupMenu(resourceBundle, resourceClass);
-        defaultPopupMenu.registerToEventQueue();
+        defaultPopupMenu.registerEvents(registrationMode);
     }
 
-    private void registerToEventQueue() {
-        overriddenQueue = new PopupEventQueue();
-        systemEventQueue = Toolkit.getDefaultToolkit().getSystemEventQueue();
-        systemEventQueue.push(overriddenQueue);
+    private void registerEvents(EventRegistrationMode registrationMode) {
+        switch (registrationMode) {
+            case EVENT_QUEUE: {
+                registerEventQueue();
+                break;
+            }
+            case AWT_EVENT_LISTENER: {
+                eventListener = new PopupEventListener();
+                Toolkit.getDefaultToolkit().addAWTEventListener(eventListener, POPUP_EVENT_MASK);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unexpected registration mode: " + registrationMode);
+        }
+        ClipboardUtils.addClipboardStateListener(clipboardStateListener);
+        this.registrationMode = registrationMode;
         registered = true;
     }
 
+    private void registerEventQueue() {
+        EventQueue systemEventQueue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+        EventQueue delegateQueue = null;
+        MethodHandle delegateDispatch = null;
+        try {
+            // Find currently active queue, typically NetBeans TimableEventQueue
+            Field nextQueueField = EventQueue.class.getDeclaredField("nextQueue");
+            nextQueueField.setAccessible(true);
+            EventQueue queue = systemEventQueue;
+            EventQueue nextQueue;
+            while ((nextQueue = (EventQueue) nextQueueField.get(queue)) != null) {
+                queue = nextQueue;
+            }
+
+            if (queue.getClass() != EventQueue.class) {
+                Method dispatchMethod = EventQueue.class.getDeclaredMethod("dispatchEvent", AWTEvent.class);
+                dispatchMethod.setAccessible(true);
+                delegateDispatch = MethodHandles.lookup().unreflect(dispatchMethod);
+                delegateQueue = queue;
+            }
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // Access to java.awt internals is not permitted, events are dispatched directly
+            Logger.getLogger(NetBeansPopupMenu.class.getName()).log(Level.FINE, "Unable to delegate to installed event queue", ex);
+        }
+
+        overriddenQueue = new PopupEventQueue(delegateQueue, delegateDispatch);
+        systemEventQueue.push(overriddenQueue);
+    }
+
+    private void applyPreferences() {
+        timing.setSlowThresholdMillis(GuiPopupPreferences.getSlowStepThreshold());
+        timing.setEnabled(GuiPopupPreferences.isSelfTiming());
+        mousePopupBlacklist = GuiPopupPreferences.getMousePopupBlacklist();
+        setHitTestIndexEnabled(GuiPopupPreferences.isHitTestIndex());
+        setTemplateCacheEnabled(GuiPopupPreferences.isTemplateCache());
+        setDeferredItemsEnabled(GuiPopupPreferences.isDeferredItems());
+        setLightweightPopup(GuiPopupPreferences.isLightweightPopup());
+        ClipboardUtils.setStreamingPasteEnabled(GuiPopupPreferences.isStreamingPaste());
+        setClipboardStateTracking(GuiPopupPreferences.isClipboardStateTracking());
+        String traceFile = GuiPopupPreferences.getTraceFile();
+        if (!traceFile.isEmpty()) {
+            try {
+                startTraceRecording(new FileOutputStream(traceFile));
+            } catch (IOException ex) {
+                Logger.getLogger(NetBeansPopupMenu.class.getName()).log(Level.WARNING, "Unable to record popup event trace to " + traceFile, ex);
+            }
+        }
+        GuiPopupPreferences.getPreferences().addPreferenceChangeListener(preferenceChangeListener);
+    }
+
+    private void setLightweightPopup(boolean lightweightPopup) {
+        UiUtils.MenuBuilder menuBuilder = UiUtils.getMenuBuilder();
+        if (lightweightPopup) {
+            if (menuBuilder == null) {
+                UiUtils.setMenuBuilder(new LightweightMenuBuilder());
+            }
+        } else if (menuBuilder instanceof LightweightMenuBuilder) {
+            UiUtils.setMenuBuilder(null);
+        }
+    }
+
+    private static void setClipboardStateTracking(boolean clipboardStateTracking) {
+        if (clipboardStateTracking) {
+            ClipboardUtils.startClipboardStateTracking();
+        } else {
+            ClipboardUtils.stopClipboardStateTracking();
+        }
+    }
+
     public static void unregister() {
         NetBeansPopupMenu defaultPopupMenu = getInstance();
         if (defaultPopupMenu.registered) {
-            defaultPopupMenu.unregisterQueue();
+            defaultPopupMenu.unregisterEvents();
         }
     }
 
-    private void unregisterQueue() {
-        overriddenQueue.push(systemEventQueue);
+    private void unregisterEvents() {
+        if (registrationMode == EventRegistrationMode.EVENT_QUEUE) {
+            overriddenQueue.detach();
+        } else {
+            Toolkit toolkit = Toolkit.getDefaultToolkit();
+            toolkit.removeAWTEventListener(eventListener);
+            toolkit.removeAWTEventListener(inspectEventListener);
+        }
         registered = false;
+        GuiPopupPreferences.getPreferences().removePreferenceChangeListener(preferenceChangeListener);
+        setHitTestIndexEnabled(false);
+        setTemplateCacheEnabled(false);
+        setLightweightPopup(false);
+        ClipboardUtils.setStreamingPasteEnabled(false);
+        setClipboardStateTracking(false);
+        ClipboardUtils.removeClipboardStateListener(clipboardStateListener);
+        cancelPrewarm();
+        removeItemsContributor(layerContributions);
+        layerContributions.uninstall();
+        latency.unregisterMBean();
+        try {
+            stopTraceRecording();
+        } catch (IOException ex) {
+            Logger.getLogger(NetBeansPopupMenu.class.getName()).log(Level.WARNING, "Unable to finish popup event trace", ex);
+        }
+
+        if (timing.isEnabled()) {
+            timing.logSummary();
+            latency.logReport();
+        }
     }
 
     private void initDefaultPopupMenu() {
@@ -137,134 +293,137 @@ public class NetBeansPopupMenu extends DefaultPopupMenu {
         defaultDeleteAction.putValue(Action.SMALL_ICON, ImageUtilities.loadImageIcon(resourceBundle.getString(POPUP_DELETE_ACTION_ID + ACTION_ICON_POSTFIX), true));
     }
 
-    // TODO extend org.netbeans.core.TimableEventQueue
+    /**
+     * Event queue processing popup triggers.
+     * <p>
+     * Events are dispatched using previously active event queue when possible,
+     * so that NetBeans TimableEventQueue keeps measuring UI responsiveness.
+     */
     @NullMarked
     public class PopupEventQueue extends EventQueue {
 
+        @Nullable
+        private final EventQueue delegateQueue;
+        @Nullable
+        private final MethodHandle delegateDispatch;
+
+        private PopupEventQueue(@Nullable EventQueue delegateQueue, @Nullable MethodHandle delegateDispatch) {
+            this.delegateQueue = delegateQueue;
+            this.delegateDispatch = delegateDispatch;
+        }
+
         @Override
         protected void dispatchEvent(AWTEvent event) {
+            if (timing.isEnabled()) {
+                long start = System.nanoTime();
+                dispatchPopupEvent(event);
+                timing.recordDispatch(System.nanoTime() - start);
+                return;
+            }
+
+            dispatchPopupEvent(event);
+        }
+
+        private void dispatchPopupEvent(AWTEvent event) {
+            if (traceWriter != null) {
+                recordTraceEvent(event);
+            }
+
+            if (!isPopupEvent(event)) {
+                dispatchDelegated(event);
+                return;
+            }
+
             if (event.getID() == MouseEvent.MOUSE_MOVED && inspectMode) {
-                inspectMode = false;
-                MouseEvent mouseEvent = (MouseEvent) event;
-                Component component = getSource(mouseEvent);
-                InspectComponentPanel inspectComponentPanel = new InspectComponentPanel();
-                inspectComponentPanel.setComponent(component, null);
-                Frame mainWindow = WindowManager.getDefault().getMainWindow();
-                final WindowUtils.DialogWrapper dialog = WindowUtils.createDialog(inspectComponentPanel, mainWindow, "Inspect Component", Dialog.ModalityType.MODELESS);
-                inspectComponentPanel.setCloseActionListener((ActionEvent e) -> {
-                    dialog.close();
-                });
-                dialog.show();
+                inspectComponent((MouseEvent) event);
+                return;
+            }
+            dispatchDelegated(event);
+
+            processTimedAWTEvent(event);
+        }
+
+        private void dispatchDelegated(AWTEvent event) {
+            if (delegateDispatch == null) {
+                super.dispatchEvent(event);
                 return;
             }
-            super.dispatchEvent(event);
 
-            processAWTEvent(event);
+            try {
+                delegateDispatch.invokeExact(delegateQueue, event);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private void detach() {
+            pop();
         }
     }
 
+    /**
+     * Returns blacklist of components without popup menu on mouse trigger.
+     *
+     * @return component blacklist
+     */
+    public ComponentBlacklist getMousePopupBlacklist() {
+        return mousePopupBlacklist;
+    }
+
+    private void inspectComponent(MouseEvent mouseEvent) {
+        inspectMode = false;
+        eventFilter = PopupEventFilter.POPUP_TRIGGER_EVENTS;
+        Component component = getSource(mouseEvent);
+        InspectComponentPanel inspectComponentPanel = new InspectComponentPanel();
+        inspectComponentPanel.setComponent(component, null);
+        Frame mainWindow = WindowManager.getDefault().getMainWindow();
+        final WindowUtils.DialogWrapper dialog = WindowUtils.createDialog(inspectComponentPanel, mainWindow, "Inspect Component", Dialog.ModalityType.MODELESS);
+        inspectComponentPanel.setCloseActionListener((ActionEvent e) -> {
+            dialog.close();
+        });
+        dialog.show();
+    }
+
+    @Override
+    protected boolean isPopupTriggerEvent(AWTEvent event) {
+        if (event.getID() == KeyEvent.KEY_PRESSED && isInspectKeyEvent((KeyEvent) event)) {
+            return true;
+        }
+
+        return super.isPopupTriggerEvent(event);
+    }
+
+    private static boolean isInspectKeyEvent(KeyEvent keyEvent) {
+        return keyEvent.getKeyCode() == KeyEvent.VK_F12 && keyEvent.isShiftDown() && keyEvent.isAltDown() && (keyEvent.isControlDown() || keyEvent.isMetaDown());
+    }
+
     @Override
     protected void processAWTEvent(AWTEvent event) {
-        if (event.getID() == MouseEvent.MOUSE_RELEASED || event.getID() == MouseEvent.MOUSE_PRESSED) {
-            MouseEvent mouseEvent = (MouseEvent) event;
-
-            if (mouseEvent.isPopupTrigger()) {
-                if (MenuSelectionManager.defaultManager().getSelectedPath().length > 0) {
-                    // Menu was already created
-                    return;
-                }
-
-                for (ComponentPopupEventDispatcher dispatcher : clipboardEventDispatchers) {
-                    if (dispatcher.dispatchMouseEvent(mouseEvent)) {
-                        return;
-                    }
-                }
-
-                Component component = getSource(mouseEvent);
-                if (component instanceof JViewport) {
-                    component = ((JViewport) component).getView();
-                }
-
-                if (component == null || MOUSE_POPUP_COMPONENT_BLACKLIST.contains(component.getClass().getCanonicalName())) {
-                    return;
-                }
-
-                if (component instanceof JEditorPane) {
-                    activateMousePopup(mouseEvent, component, new EditorPanePopupHandler((JEditorPane) component));
-                } else if (component instanceof JTextComponent) {
-                    activateMousePopup(mouseEvent, component, new TextComponentPopupHandler((JTextComponent) component));
-                } else if (component instanceof JList) {
-                    activateMousePopup(mouseEvent, component, new ListPopupHandler((JList<?>) component));
-                } else if (component instanceof JTable) {
-                    activateMousePopup(mouseEvent, component, new TablePopupHandler((JTable) component));
-                }
+        if (event.getID() == KeyEvent.KEY_PRESSED && isInspectKeyEvent((KeyEvent) event)) {
+            // Unable to infer component from mouse position, so simulate click instead
+            inspectMode = true;
+            if (registrationMode == EventRegistrationMode.AWT_EVENT_LISTENER) {
+                Toolkit.getDefaultToolkit().addAWTEventListener(inspectEventListener, AWTEvent.MOUSE_MOTION_EVENT_MASK);
+            } else {
+                eventFilter = INSPECT_MODE_EVENTS;
             }
-        } else if (event.getID() == KeyEvent.KEY_PRESSED) {
-            KeyEvent keyEvent = (KeyEvent) event;
-            if (keyEvent.getKeyCode() == KeyEvent.VK_F12 && keyEvent.isShiftDown() && keyEvent.isAltDown() && (keyEvent.isControlDown() || keyEvent.isMetaDown())) {
-                // Unable to infer component from mouse position, so simulate click instead
-                inspectMode = true;
-                try {
-                    Robot robot = new Robot();
-                    Point location = MouseInfo.getPointerInfo().getLocation();
-                    robot.mouseMove(location.x, location.y);
-                } catch (AWTException ex) {
-                    Logger.getLogger(NetBeansPopupMenu.class.getName()).log(Level.SEVERE, null, ex);
-                }
-            } else if (keyEvent.getKeyCode() == KeyEvent.VK_CONTEXT_MENU || (keyEvent.getKeyCode() == KeyEvent.VK_F10 && keyEvent.isShiftDown())) {
-                if (MenuSelectionManager.defaultManager().getSelectedPath().length > 0) {
-                    // Menu was already created
-                    return;
-                }
-
-                for (ComponentPopupEventDispatcher dispatcher : clipboardEventDispatchers) {
-                    if (dispatcher.dispatchKeyEvent(keyEvent)) {
-                        return;
-                    }
-                }
-
-                Component component = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
-
-                if (component instanceof JEditorPane) {
-                    Point point;
-                    try {
-                        Rectangle relativeRect = ((JEditorPane) component).modelToView(((JTextComponent) component).getCaretPosition());
-                        point = relativeRect == null ? null : new Point(relativeRect.x + relativeRect.width, relativeRect.y + relativeRect.height);
-                    } catch (BadLocationException ex) {
-                        point = null;
-                    }
-                    activateKeyPopup(component, point, new EditorPanePopupHandler((JEditorPane) component));
-                } else if (component instanceof JTextComponent) {
-                    Point point;
-                    try {
-                        Rectangle relativeRect = ((JTextComponent) component).modelToView(((JTextComponent) component).getCaretPosition());
-                        point = relativeRect == null ? null : new Point(relativeRect.x + relativeRect.width, relativeRect.y + relativeRect.height);
-                    } catch (BadLocationException ex) {
-                        point = null;
-                    }
-                    activateKeyPopup(component, point, new TextComponentPopupHandler((JTextComponent) component));
-                } else if (component instanceof JList) {
-                    Point point = null;
-                    int selectedIndex = ((JList<?>) component).getSelectedIndex();
-                    if (selectedIndex >= 0) {
-                        Rectangle cellBounds = ((JList<?>) component).getCellBounds(selectedIndex, selectedIndex);
-                        point = new Point(component.getWidth() / 2, cellBounds.y);
-                    }
-                    activateKeyPopup(component, point, new ListPopupHandler((JList<?>) component));
-                } else if (component instanceof JTable) {
-                    Point point = null;
-                    int selectedRow = ((JTable) component).getSelectedRow();
-                    if (selectedRow >= 0) {
-                        int selectedColumn = ((JTable) component).getSelectedColumn();
-                        if (selectedColumn < -1) {
-                            selectedColumn = 0;
-                        }
-                        Rectangle cellBounds = ((JTable) component).getCellRect(selectedRow, selectedColumn, false);
-                        point = new Point(cellBounds.x, cellBounds.y);
-                    }
-                    activateKeyPopup(component, point, new TablePopupHandler((JTable) component));
-                }
+            try {
+                Robot robot = new Robot();
+                Point location = MouseInfo.getPointerInfo().getLocation();
+                robot.mouseMove(location.x, location.y);
+            } catch (AWTException ex) {
+                Logger.getLogger(NetBeansPopupMenu.class.getName()).log(Level.SEVERE, null, ex);
             }
+            return;
         }
+
+        super.processAWTEvent(event);
+    }
+
+    @Override
+    protected boolean isMousePopupAllowed(Component component) {
+        return !mousePopupBlacklist.isBlacklisted(component.getClass());
     }
 }